@@ -0,0 +1,93 @@
+package com.example.productsapi.benchmarks;
+
+import com.example.productsapi.cache.MissingProductCache;
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.SingleFlight;
+import com.example.productsapi.dtos.ProductStatisticsDto;
+import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.DatabaseProductSearch;
+import com.example.productsapi.services.ProductService;
+import com.example.productsapi.services.ProductServiceImpl;
+import com.example.productsapi.services.ProductStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        RedisAutoConfiguration.class,
+        RedisReactiveAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class,
+        R2dbcAutoConfiguration.class})
+@EntityScan(basePackageClasses = ProductEntity.class)
+@EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+public class BenchmarkApplication {
+
+    @Bean
+    public SingleFlight<Long, Optional<ProductEntity>> productLoads(MeterRegistry registry) {
+        return new SingleFlight<>("products.cache.loads", registry);
+    }
+
+    @Bean
+    public ProductService productService(ProductRepository repository,
+                                         ProductCache cache,
+                                         ApplicationEventPublisher events,
+                                         EntityManager entityManager,
+                                         SingleFlight<Long, Optional<ProductEntity>> productLoads,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry registry) {
+        var missing = new MissingProductCache(null, "", Duration.ZERO, null, registry);
+        return new ProductServiceImpl(repository, cache, missing, events, entityManager, productLoads,
+                new DatabaseProductSearch(repository), new NoStatistics(), transactionManager, registry);
+    }
+
+    private static class NoStatistics implements ProductStatistics {
+        @Override
+        public void put(Map<Long, Double> prices) {
+        }
+
+        @Override
+        public void remove(Collection<Long> productIds) {
+        }
+
+        @Override
+        public ProductStatisticsDto get() {
+            return new ProductStatisticsDto();
+        }
+    }
+
+    public static ConfigurableApplicationContext start(ProductCache cache) {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .initializers(context -> context.getBeanFactory().registerSingleton("productCache", cache))
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.open-in-view=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.productsapi.benchmarks;
+
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheCodec;
+import com.example.productsapi.cache.ProductCacheEntity;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryProductCache implements ProductCache {
+
+    private final Map<Long, byte[]> values = new ConcurrentHashMap<>();
+    private final boolean retain;
+
+    public InMemoryProductCache(boolean retain) {
+        this.retain = retain;
+    }
+
+    @Override
+    public Optional<ProductCacheEntity> get(long productId) {
+        var bytes = values.get(productId);
+        return bytes == null ? Optional.empty() : ProductCacheCodec.decode(bytes);
+    }
+
+    @Override
+    public Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds) {
+        var found = new HashMap<Long, ProductCacheEntity>(productIds.size());
+        for (var productId : productIds)
+            get(productId).ifPresent(p -> found.put(productId, p));
+        return found;
+    }
+
+    @Override
+    public void put(ProductCacheEntity product) {
+        var bytes = ProductCacheCodec.encode(product);
+        if (retain)
+            values.put(product.getId(), bytes);
+    }
+
+    @Override
+    public void putAll(Collection<ProductCacheEntity> products) {
+        products.forEach(this::put);
+    }
+
+    @Override
+    public void evict(long productId) {
+        values.remove(productId);
+    }
+
+    @Override
+    public void evictAll(Collection<Long> productIds) {
+        productIds.forEach(values::remove);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.productsapi.benchmarks;
+
+import com.example.productsapi.cache.ProductCacheCodec;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.entities.ProductEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import java.util.Optional;
+
+@State(Scope.Benchmark)
+public class ProductMappingBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ProductEntity entity;
+    private ProductCacheEntity cacheEntity;
+    private MappingRedisConverter converter;
+    private RedisData hash;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        entity = new ProductEntity(42, "Playstation 5 Digital Edition", 399.99d);
+        cacheEntity = new ProductCacheEntity();
+        cacheEntity.setId(42);
+        cacheEntity.setName("Playstation 5 Digital Edition");
+        cacheEntity.setPrice(399.99d);
+        converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        hash = writeHash();
+        binary = ProductCacheCodec.encode(cacheEntity);
+    }
+
+    @Benchmark
+    public ProductDto entityToDto() {
+        return new ProductDto(entity.getId(), entity.getName(), entity.getPrice());
+    }
+
+    @Benchmark
+    public String dtoToJson() throws JsonProcessingException {
+        return mapper.writeValueAsString(entityToDto());
+    }
+
+    @Benchmark
+    public RedisData writeHash() {
+        var data = new RedisData();
+        converter.write(cacheEntity, data);
+        return data;
+    }
+
+    @Benchmark
+    public ProductCacheEntity readHash() {
+        return converter.read(ProductCacheEntity.class, hash);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return ProductCacheCodec.encode(cacheEntity);
+    }
+
+    @Benchmark
+    public Optional<ProductCacheEntity> decodeBinary() {
+        return ProductCacheCodec.decode(binary);
+    }
+}
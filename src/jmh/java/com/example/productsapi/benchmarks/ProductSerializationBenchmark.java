@@ -0,0 +1,100 @@
+package com.example.productsapi.benchmarks;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class ProductSerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "1000"})
+    private int products;
+
+    private ObjectMapper mapper;
+    private JavaType listType;
+    private ProductDto product;
+    private List<ProductDto> list;
+    private byte[] productBytes;
+    private byte[] listBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "cbor":
+                mapper = new CBORMapper();
+                break;
+            case "smile":
+                mapper = new SmileMapper();
+                break;
+            default:
+                mapper = new ObjectMapper();
+        }
+        listType = mapper.getTypeFactory().constructCollectionType(List.class, ProductDto.class);
+        list = new ArrayList<>(products);
+        for (int i = 1; i <= products; i++) {
+            var dto = new ProductDto(i, "Playstation 5 Digital Edition #" + i, 399.99d + i);
+            dto.setVersion((long) i % 7);
+            list.add(dto);
+        }
+        product = list.get(0);
+        productBytes = mapper.writeValueAsBytes(product);
+        listBytes = mapper.writeValueAsBytes(list);
+    }
+
+    // Reported next to the encode scores as the ":payloadBytes" secondary result, so sizes land in the JSON report.
+    // JMH sums event counters over threads, measurement iterations and forks, hence the division
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public double payloadBytes;
+        private int samples;
+
+        @Setup
+        public void setUp(BenchmarkParams params) {
+            samples = params.getThreads() * params.getMeasurement().getCount() * Math.max(1, params.getForks());
+        }
+
+        void record(byte[] bytes) {
+            payloadBytes = bytes.length / (double) samples;
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeProduct(Payload payload) throws IOException {
+        var bytes = mapper.writeValueAsBytes(product);
+        payload.record(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public ProductDto decodeProduct() throws IOException {
+        return mapper.readValue(productBytes, ProductDto.class);
+    }
+
+    @Benchmark
+    public byte[] encodeList(Payload payload) throws IOException {
+        var bytes = mapper.writeValueAsBytes(list);
+        payload.record(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public List<ProductDto> decodeList() throws IOException {
+        return mapper.readValue(listBytes, listType);
+    }
+}
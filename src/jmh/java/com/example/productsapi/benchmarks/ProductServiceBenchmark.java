@@ -0,0 +1,139 @@
+package com.example.productsapi.benchmarks;
+
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import com.example.productsapi.services.ProductCursor;
+import com.example.productsapi.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int MULTI_GET_SIZE = 100;
+    private static final int PAGE_SIZE = 100;
+    private static final int BULK_SIZE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    @Param({"hit", "miss"})
+    public String cache;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(new InMemoryProductCache("hit".equals(cache)));
+        service = context.getBean(ProductService.class);
+        for (int created = 0; created < catalogSize; created += SEED_BATCH_SIZE) {
+            var batch = new ArrayList<CreateProductDto>(SEED_BATCH_SIZE);
+            for (int i = created; i < Math.min(catalogSize, created + SEED_BATCH_SIZE); i++)
+                batch.add(new CreateProductDto("Product " + i, i * 0.5d));
+            service.createAll(batch);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<ProductDto> getById() {
+        return service.getById(randomId());
+    }
+
+    @Benchmark
+    public List<ProductDto> getByIds() {
+        var first = ThreadLocalRandom.current().nextLong(1, Math.max(2, catalogSize - MULTI_GET_SIZE));
+        var ids = LongStream.range(first, first + MULTI_GET_SIZE).boxed().collect(Collectors.toList());
+        return service.getByIds(ids);
+    }
+
+    @Benchmark
+    public List<ProductDto> getAll() {
+        return service.getAll();
+    }
+
+    @Benchmark
+    public ProductPageDto getPage() {
+        return service.getPage(ProductCursor.encode(randomId() - 1), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void exportAll(Blackhole blackhole) {
+        service.exportAll(blackhole::consume);
+    }
+
+    @Benchmark
+    public ProductDto update() {
+        var productId = randomId();
+        return service.update(new UpdateProductDto(productId, "Product " + productId, 1.5d));
+    }
+
+    @Benchmark
+    public Long patch() {
+        return service.patch(new UpdateProductDto(randomId(), null, 2.5d, null));
+    }
+
+    @Benchmark
+    public ProductDto create() {
+        return service.create(new CreateProductDto("New product", 9.99d));
+    }
+
+    // Deleting needs a row to delete, so each invocation creates one first and the catalog size stays put
+    @Benchmark
+    public void createAndDelete() {
+        service.delete(service.create(new CreateProductDto("Deleted product", 9.99d)).getId());
+    }
+
+    @Benchmark
+    public List<ProductDto> updateAll() {
+        var first = ThreadLocalRandom.current().nextLong(1, Math.max(2, catalogSize - BULK_SIZE));
+        var dtos = LongStream.range(first, first + BULK_SIZE)
+                .mapToObj(id -> new UpdateProductDto(id, "Product " + id, 1.5d))
+                .collect(Collectors.toList());
+        return service.updateAll(dtos);
+    }
+
+    @Benchmark
+    public void createAllAndDeleteAll() {
+        var dtos = new ArrayList<CreateProductDto>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++)
+            dtos.add(new CreateProductDto("Deleted product " + i, 9.99d));
+        var ids = service.createAll(dtos).stream().map(ProductDto::getId).collect(Collectors.toList());
+        service.deleteAll(ids);
+    }
+
+    @Benchmark
+    public List<ProductDto> searchByNamePrefix() {
+        return service.search("product " + ThreadLocalRandom.current().nextInt(1, 10), null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ProductDto> searchByPriceRange() {
+        var min = ThreadLocalRandom.current().nextInt(0, Math.max(1, catalogSize / 2));
+        return service.search(null, (double) min, min + 50d, PAGE_SIZE);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+}
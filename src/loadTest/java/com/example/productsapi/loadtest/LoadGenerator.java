@@ -0,0 +1,148 @@
+package com.example.productsapi.loadtest;
+
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: requests are started on a Poisson schedule at the configured rate whether or not earlier ones
+// have completed, the way independent clients behave. When more than maxInFlight requests are outstanding, new
+// ones are counted as dropped rather than delayed
+public class LoadGenerator {
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    private final String baseUrl;
+    private final ZipfKeys keys;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LoadGenerator(LoadTestSettings settings, HttpClient client, ObjectMapper mapper, String baseUrl, ZipfKeys keys) {
+        this.settings = settings;
+        this.client = client;
+        this.mapper = mapper;
+        this.baseUrl = baseUrl;
+        this.keys = keys;
+        var mix = settings.getMix();
+        operations = mix.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public LoadTestResult run() throws InterruptedException {
+        var timeoutNanos = settings.getTimeout().toNanos();
+        var stats = new EnumMap<Operation, OperationStats>(Operation.class);
+        for (var operation : operations)
+            stats.put(operation, new OperationStats(timeoutNanos));
+
+        var random = new Random(settings.getSeed());
+        var meanGapNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        var start = System.nanoTime();
+        var measureFrom = start + settings.getWarmUp().toNanos();
+        var end = measureFrom + settings.getDuration().toNanos();
+        long sequence = 0;
+        for (long next = start; next < end; next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) {
+            var wait = next - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            var operation = pickOperation(random);
+            var operationStats = next >= measureFrom ? stats.get(operation) : null;
+            if (inFlight.get() >= settings.getMaxInFlight()) {
+                if (operationStats != null)
+                    operationStats.recordDropped();
+                continue;
+            }
+            send(request(operation, random, sequence++), next, operationStats);
+        }
+        awaitInFlight(timeoutNanos);
+        return new LoadTestResult(stats, settings.getDuration().toNanos());
+    }
+
+    private void send(HttpRequest request, long scheduledAt, OperationStats stats) {
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    var latency = System.nanoTime() - scheduledAt;
+                    inFlight.decrementAndGet();
+                    if (stats == null)
+                        return;
+                    if (error == null && response.statusCode() / 100 == 2)
+                        stats.recordSuccess(latency);
+                    else
+                        stats.recordError(error == null ? response.statusCode() : 0);
+                });
+    }
+
+    private HttpRequest request(Operation operation, Random random, long sequence) {
+        switch (operation) {
+            case GET_BY_ID:
+                return builder("/products/" + keys.next(random)).GET().build();
+            case GET_ALL:
+                return builder("/products/?limit=20").GET().build();
+            case CREATE:
+                return builder("/products")
+                        .header("Content-Type", "application/json")
+                        .POST(json(new CreateProductDto("Load test product " + sequence, price(random))))
+                        .build();
+            case UPDATE:
+                var id = keys.next(random);
+                var dto = new UpdateProductDto();
+                dto.setId(id);
+                dto.setName("Load test product " + id + " rev " + sequence);
+                dto.setPrice(price(random));
+                return builder("/products/" + id)
+                        .header("Content-Type", "application/json")
+                        .PUT(json(dto))
+                        .build();
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(settings.getTimeout())
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double price(Random random) {
+        return Math.round(random.nextDouble() * 100000) / 100d;
+    }
+
+    private Operation pickOperation(Random random) {
+        var value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i])
+                return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void awaitInFlight(long timeoutNanos) throws InterruptedException {
+        var deadline = System.nanoTime() + timeoutNanos;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.productsapi.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+public class LoadTestResult {
+    static final double[] PERCENTILES = {50, 99, 99.9};
+    static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private final Map<Operation, OperationStats> stats;
+    private final long durationNanos;
+
+    public LoadTestResult(Map<Operation, OperationStats> stats, long durationNanos) {
+        this.stats = stats;
+        this.durationNanos = durationNanos;
+    }
+
+    public Map<Operation, OperationStats> getStats() {
+        return stats;
+    }
+
+    public double getThroughput() {
+        long successes = 0;
+        for (var operationStats : stats.values())
+            successes += operationStats.getSuccesses();
+        return successes / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public double getErrorRate() {
+        long total = 0;
+        long failed = 0;
+        for (var operationStats : stats.values()) {
+            total += operationStats.getSuccesses() + operationStats.getErrors() + operationStats.getDropped();
+            failed += operationStats.getErrors() + operationStats.getDropped();
+        }
+        return total == 0 ? 0 : failed / (double) total;
+    }
+
+    public Properties toProperties(LoadTestSettings settings) {
+        var properties = new Properties();
+        properties.setProperty("rate", format(settings.getRate()));
+        properties.setProperty("products", Integer.toString(settings.getProducts()));
+        properties.setProperty("skew", format(settings.getSkew()));
+        properties.setProperty("mix", mixToString(settings.getMix()));
+        properties.setProperty("throughput", format(getThroughput()));
+        for (var entry : stats.entrySet()) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                properties.setProperty(entry.getKey().getName() + "." + PERCENTILE_NAMES[i],
+                        format(entry.getValue().percentileMillis(PERCENTILES[i])));
+            }
+        }
+        return properties;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-8s %9s %7s %7s %9s %9s %9s %9s%n",
+                "", "ok", "errors", "dropped", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (var entry : stats.entrySet()) {
+            var operationStats = entry.getValue();
+            out.printf("%-8s %9d %7d %7d %9.3f %9.3f %9.3f %9.3f%n", entry.getKey().getName(),
+                    operationStats.getSuccesses(), operationStats.getErrors(), operationStats.getDropped(),
+                    operationStats.percentileMillis(50), operationStats.percentileMillis(99),
+                    operationStats.percentileMillis(99.9), operationStats.getLatencies().getMaxValue() / 1000d);
+        }
+        for (var entry : stats.entrySet()) {
+            if (entry.getValue().getErrors() > 0)
+                out.printf("%s errors by status: %s%n", entry.getKey().getName(), entry.getValue().describeErrors());
+        }
+        out.printf("throughput %.1f req/s, error rate %.4f%n", getThroughput(), getErrorRate());
+    }
+
+    // One HdrHistogram percentile distribution per operation (plottable with HdrHistogram's plotter), plus the
+    // summary in the same format as the baseline
+    public void write(Path directory, LoadTestSettings settings) throws IOException {
+        Files.createDirectories(directory);
+        for (var entry : stats.entrySet()) {
+            try (var out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey().getName() + ".hgrm")))) {
+                entry.getValue().getLatencies().outputPercentileDistribution(out, 1000d);
+            }
+        }
+        store(toProperties(settings), directory.resolve("summary.properties"));
+    }
+
+    // Sorted and without the timestamp Properties.store adds, so baselines diff cleanly between commits
+    static void store(Properties properties, Path file) throws IOException {
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        try (var out = Files.newBufferedWriter(file)) {
+            out.write("# Load test summary: latencies in ms, throughput in successful req/s\n");
+            for (var name : new TreeSet<>(properties.stringPropertyNames()))
+                out.write(name + "=" + properties.getProperty(name) + "\n");
+        }
+    }
+
+    static String mixToString(Map<Operation, Integer> mix) {
+        var result = new StringBuilder();
+        for (var entry : mix.entrySet()) {
+            if (result.length() > 0)
+                result.append(',');
+            result.append(entry.getKey().getName()).append('=').append(entry.getValue());
+        }
+        return result.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(java.util.Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.productsapi.loadtest;
+
+import com.example.productsapi.ProductsApiApplication;
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Boots the application against H2 and an in-process Redis stand-in (unless loadTest.baseUrl points at a running
+// instance), seeds it, drives the configured load and compares the latencies and throughput with the baseline.
+// Application properties can be overridden with loadTest.app.<property>
+public class LoadTestRunner {
+    private static final String APP_PROPERTY_PREFIX = "loadTest.app.";
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private final LoadTestSettings settings;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+
+    public LoadTestRunner(LoadTestSettings settings) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.getTimeout())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var passed = new LoadTestRunner(LoadTestSettings.fromSystemProperties()).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    public boolean run() throws Exception {
+        if (!settings.getBaseUrl().isBlank())
+            return run(settings.getBaseUrl());
+
+        var redis = RedisServer.newRedisServer().start();
+        try (var context = startApplication(redis)) {
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return run("http://localhost:" + port);
+        } finally {
+            redis.stop();
+        }
+    }
+
+    private boolean run(String baseUrl) throws Exception {
+        var ids = seed(baseUrl);
+        var keys = new ZipfKeys(ids, settings.getSkew(), settings.getSeed());
+        System.out.printf("Seeded %d products; running %.0f req/s for %ds after %ds warm-up against %s%n",
+                ids.length, settings.getRate(), settings.getDuration().toSeconds(), settings.getWarmUp().toSeconds(), baseUrl);
+
+        var result = new LoadGenerator(settings, client, mapper, baseUrl, keys).run();
+        result.print(System.out);
+        result.write(settings.getReportDirectory(), settings);
+
+        if (settings.isUpdateBaseline()) {
+            LoadTestResult.store(result.toProperties(settings), settings.getBaseline());
+            System.out.println("Baseline written to " + settings.getBaseline());
+            return true;
+        }
+        if (!Files.exists(settings.getBaseline())) {
+            System.out.println("No baseline at " + settings.getBaseline() + "; rerun with -PloadTest.updateBaseline=true to record one");
+            return false;
+        }
+        var baseline = new Properties();
+        try (var in = Files.newBufferedReader(settings.getBaseline())) {
+            baseline.load(in);
+        }
+        var violations = new RegressionGate(settings).check(baseline, result);
+        if (violations.isEmpty()) {
+            System.out.println("No regressions against " + settings.getBaseline());
+            return true;
+        }
+        System.out.println("Regressions against " + settings.getBaseline() + ":");
+        violations.forEach(violation -> System.out.println("  " + violation));
+        return false;
+    }
+
+    private ConfigurableApplicationContext startApplication(RedisServer redis) {
+        var properties = new HashMap<String, Object>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.redis.host", redis.getHost());
+        properties.put("spring.redis.port", redis.getBindPort());
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(applicationOverrides());
+        // Passed as command line arguments: builder defaults would lose to application.properties
+        var args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ProductsApiApplication.class).run(args);
+    }
+
+    private static Map<String, Object> applicationOverrides() {
+        var overrides = new HashMap<String, Object>();
+        for (var name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(APP_PROPERTY_PREFIX))
+                overrides.put(name.substring(APP_PROPERTY_PREFIX.length()), System.getProperty(name));
+        }
+        return overrides;
+    }
+
+    private long[] seed(String baseUrl) throws IOException, InterruptedException {
+        var ids = new long[settings.getProducts()];
+        for (int offset = 0; offset < ids.length; offset += SEED_CHUNK_SIZE) {
+            var chunk = new ArrayList<CreateProductDto>();
+            for (int i = offset; i < Math.min(offset + SEED_CHUNK_SIZE, ids.length); i++)
+                chunk.add(new CreateProductDto("Seeded product " + i, 1 + (i % 100000) / 100d));
+            var request = HttpRequest.newBuilder(URI.create(baseUrl + "/products/bulk"))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(chunk)))
+                    .build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("Seeding products failed with status " + response.statusCode());
+            var created = mapper.readValue(response.body(), ProductDto[].class);
+            for (int i = 0; i < created.length; i++)
+                ids[offset + i] = created[i].getId();
+        }
+        return ids;
+    }
+}
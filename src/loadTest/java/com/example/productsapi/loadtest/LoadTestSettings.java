@@ -0,0 +1,141 @@
+package com.example.productsapi.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public class LoadTestSettings {
+    private final String baseUrl;
+    private final double rate;
+    private final Duration warmUp;
+    private final Duration duration;
+    private final int products;
+    private final double skew;
+    private final Map<Operation, Integer> mix;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final long seed;
+    private final Path baseline;
+    private final boolean updateBaseline;
+    private final double latencyTolerance;
+    private final double throughputTolerance;
+    private final double latencySlackMillis;
+    private final double maxErrorRate;
+    private final Path reportDirectory;
+
+    private LoadTestSettings(Map<String, String> properties) {
+        baseUrl = properties.getOrDefault("loadTest.baseUrl", "");
+        rate = Double.parseDouble(properties.getOrDefault("loadTest.rate", "200"));
+        warmUp = Duration.parse("PT" + properties.getOrDefault("loadTest.warmUp", "10s"));
+        duration = Duration.parse("PT" + properties.getOrDefault("loadTest.duration", "30s"));
+        products = Integer.parseInt(properties.getOrDefault("loadTest.products", "10000"));
+        skew = Double.parseDouble(properties.getOrDefault("loadTest.skew", "1.1"));
+        mix = parseMix(properties.getOrDefault("loadTest.mix", "getById=80,getAll=5,create=5,update=10"));
+        maxInFlight = Integer.parseInt(properties.getOrDefault("loadTest.maxInFlight", "1000"));
+        timeout = Duration.parse("PT" + properties.getOrDefault("loadTest.timeout", "5s"));
+        seed = Long.parseLong(properties.getOrDefault("loadTest.seed", "42"));
+        baseline = Path.of(properties.getOrDefault("loadTest.baseline", "src/loadTest/baseline.properties"));
+        updateBaseline = Boolean.parseBoolean(properties.getOrDefault("loadTest.updateBaseline", "false"));
+        latencyTolerance = Double.parseDouble(properties.getOrDefault("loadTest.latencyTolerance", "0.25"));
+        throughputTolerance = Double.parseDouble(properties.getOrDefault("loadTest.throughputTolerance", "0.05"));
+        latencySlackMillis = Double.parseDouble(properties.getOrDefault("loadTest.latencySlackMillis", "1"));
+        maxErrorRate = Double.parseDouble(properties.getOrDefault("loadTest.maxErrorRate", "0.01"));
+        reportDirectory = Path.of(properties.getOrDefault("loadTest.reportDirectory", "build/reports/loadtest"));
+        if (rate <= 0 || products <= 0 || maxInFlight <= 0 || duration.isZero() || duration.isNegative())
+            throw new IllegalArgumentException("loadTest.rate, products, maxInFlight and duration must be positive");
+    }
+
+    public static LoadTestSettings fromSystemProperties() {
+        var properties = new HashMap<String, String>();
+        for (var name : System.getProperties().stringPropertyNames())
+            properties.put(name, System.getProperty(name));
+        return new LoadTestSettings(properties);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        var result = new EnumMap<Operation, Integer>(Operation.class);
+        for (var entry : value.split(",")) {
+            var parts = entry.trim().split("=");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid loadTest.mix entry: " + entry);
+            var weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0)
+                throw new IllegalArgumentException("Invalid loadTest.mix weight: " + entry);
+            if (weight > 0)
+                result.put(Operation.fromName(parts[0].trim()), weight);
+        }
+        if (result.isEmpty())
+            throw new IllegalArgumentException("loadTest.mix has no operations");
+        return result;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Duration getWarmUp() {
+        return warmUp;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+
+    public double getSkew() {
+        return skew;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Path getBaseline() {
+        return baseline;
+    }
+
+    public boolean isUpdateBaseline() {
+        return updateBaseline;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public double getThroughputTolerance() {
+        return throughputTolerance;
+    }
+
+    public double getLatencySlackMillis() {
+        return latencySlackMillis;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public Path getReportDirectory() {
+        return reportDirectory;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.productsapi.loadtest;
+
+public enum Operation {
+    GET_BY_ID("getById"),
+    GET_ALL("getAll"),
+    CREATE("create"),
+    UPDATE("update");
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static Operation fromName(String name) {
+        for (var operation : values()) {
+            if (operation.name.equals(name))
+                return operation;
+        }
+        throw new IllegalArgumentException("Unknown load test operation: " + name);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.productsapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies are recorded in microseconds from the time a request was scheduled to start, not from when it was
+// sent, so a stalled server shows up in the percentiles instead of silently lowering the request rate
+public class OperationStats {
+    private final Histogram latencies;
+    private final Map<Integer, LongAdder> errors = new ConcurrentSkipListMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public OperationStats(long timeoutNanos) {
+        latencies = new ConcurrentHistogram(TimeUnit.NANOSECONDS.toMicros(timeoutNanos) * 2, 3);
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+    }
+
+    // status is 0 when no response arrived (timeout or connection failure)
+    public void recordError(int status) {
+        errors.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getSuccesses() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public String describeErrors() {
+        var result = new StringBuilder();
+        errors.forEach((status, count) -> result.append(result.length() == 0 ? "" : ", ")
+                .append(status == 0 ? "no response" : status.toString()).append(": ").append(count.sum()));
+        return result.toString();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000d;
+    }
+}
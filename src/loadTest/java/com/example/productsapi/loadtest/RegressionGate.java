@@ -0,0 +1,61 @@
+package com.example.productsapi.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Compares a run with the stored baseline. A percentile regresses when it exceeds the baseline by more than
+// latencyTolerance (relative) plus latencySlackMillis (absolute, so sub-millisecond jitter does not fail the run);
+// throughput regresses when it falls more than throughputTolerance below the baseline. Percentiles with fewer than
+// MIN_TAIL_SAMPLES requests above them are only noise (p99.9 of 500 requests is the maximum) and are not gated
+public class RegressionGate {
+    private static final int MIN_TAIL_SAMPLES = 10;
+    private static final String[] SETTINGS = {"rate", "products", "skew", "mix"};
+
+    private final LoadTestSettings settings;
+
+    public RegressionGate(LoadTestSettings settings) {
+        this.settings = settings;
+    }
+
+    public List<String> check(Properties baseline, LoadTestResult result) {
+        var violations = new ArrayList<String>();
+        var current = result.toProperties(settings);
+        for (var name : SETTINGS) {
+            if (!current.getProperty(name).equals(baseline.getProperty(name))) {
+                violations.add(String.format("baseline was recorded with %s=%s but this run used %s; rerun with "
+                        + "-PloadTest.updateBaseline=true to record a new one", name, baseline.getProperty(name),
+                        current.getProperty(name)));
+            }
+        }
+        if (!violations.isEmpty())
+            return violations;
+
+        for (var entry : result.getStats().entrySet()) {
+            var successes = entry.getValue().getSuccesses();
+            for (int i = 0; i < LoadTestResult.PERCENTILES.length; i++) {
+                var key = entry.getKey().getName() + "." + LoadTestResult.PERCENTILE_NAMES[i];
+                var expected = baseline.getProperty(key);
+                if (expected == null || successes * (100 - LoadTestResult.PERCENTILES[i]) / 100 < MIN_TAIL_SAMPLES)
+                    continue;
+                var limit = Double.parseDouble(expected) * (1 + settings.getLatencyTolerance()) + settings.getLatencySlackMillis();
+                var actual = Double.parseDouble(current.getProperty(key));
+                if (actual > limit)
+                    violations.add(String.format("%s %.3f ms exceeds baseline %s ms (limit %.3f ms)", key, actual, expected, limit));
+            }
+        }
+
+        var expectedThroughput = baseline.getProperty("throughput");
+        if (expectedThroughput != null) {
+            var minimum = Double.parseDouble(expectedThroughput) * (1 - settings.getThroughputTolerance());
+            if (result.getThroughput() < minimum) {
+                violations.add(String.format("throughput %.1f req/s is below baseline %s req/s (minimum %.1f)",
+                        result.getThroughput(), expectedThroughput, minimum));
+            }
+        }
+        if (result.getErrorRate() > settings.getMaxErrorRate()) {
+            violations.add(String.format("error rate %.4f exceeds %.4f", result.getErrorRate(), settings.getMaxErrorRate()));
+        }
+        return violations;
+    }
+}
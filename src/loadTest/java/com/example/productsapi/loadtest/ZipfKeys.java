@@ -0,0 +1,40 @@
+package com.example.productsapi.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Picks product ids with a Zipf distribution over their rank: the k-th hottest id is requested with a probability
+// proportional to 1 / k^skew. Ranks are assigned to ids in a seeded random order so the hot set is not just the
+// oldest rows
+public class ZipfKeys {
+    private final long[] ids;
+    private final double[] cumulative;
+
+    public ZipfKeys(long[] ids, double skew, long seed) {
+        if (ids.length == 0)
+            throw new IllegalArgumentException("No product ids to request");
+        this.ids = ids.clone();
+        var random = new Random(seed);
+        for (int i = this.ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            var id = this.ids[i];
+            this.ids[i] = this.ids[j];
+            this.ids[j] = id;
+        }
+        cumulative = new double[ids.length];
+        double sum = 0;
+        for (int rank = 0; rank < ids.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < ids.length; rank++)
+            cumulative[rank] /= sum;
+    }
+
+    public long next(Random random) {
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (index < 0)
+            index = -index - 1;
+        return ids[Math.min(index, ids.length - 1)];
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.productsapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class BinaryRedisProductCache implements ProductCache {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final byte[] timeToLive;
+    private final CacheTierMetrics metrics;
+    private final Counter staleWrites;
+
+    public BinaryRedisProductCache(StringRedisTemplate redisTemplate,
+                                   String keyPrefix,
+                                   Duration timeToLive,
+                                   MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.timeToLive = ProductCacheScripts.bytes(String.valueOf(timeToLive.toMillis()));
+        this.metrics = new CacheTierMetrics(registry, "l2");
+        this.staleWrites = Counter.builder("products.cache.stale-writes").tag("tier", "l2").register(registry);
+    }
+
+    @Override
+    public Optional<ProductCacheEntity> get(long productId) {
+        var result = decode(getRaw(productId));
+        metrics.record(result.isPresent());
+        return result;
+    }
+
+    @Override
+    public Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return Map.of();
+        var ids = List.copyOf(productIds);
+        var keys = ids.stream().map(this::key).toArray(byte[][]::new);
+        var values = metrics.time("getAll", () ->
+                redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(keys)));
+
+        var result = new HashMap<Long, ProductCacheEntity>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            var product = decode(values == null ? null : values.get(i));
+            metrics.record(product.isPresent());
+            var productId = ids.get(i);
+            product.ifPresent(p -> result.put(productId, p));
+        }
+        return result;
+    }
+
+    @Override
+    public void put(ProductCacheEntity product) {
+        putAll(List.of(product));
+    }
+
+    @Override
+    public void putAll(Collection<ProductCacheEntity> products) {
+        if (products.isEmpty())
+            return;
+        var batch = List.copyOf(products);
+        for (int from = 0; from < batch.size(); from += ProductCacheScripts.BATCH_SIZE) {
+            var chunk = batch.subList(from, Math.min(from + ProductCacheScripts.BATCH_SIZE, batch.size()));
+            var args = new byte[chunk.size() * 3 + 1][];
+            args[chunk.size()] = timeToLive;
+            for (int i = 0; i < chunk.size(); i++) {
+                var product = chunk.get(i);
+                args[i] = key(product.getId());
+                args[chunk.size() + 1 + i * 2] = ProductCacheScripts.version(product);
+                args[chunk.size() + 2 + i * 2] = encode(product);
+            }
+            var written = metrics.time("put", () -> redisTemplate.execute((RedisCallback<Long>) connection ->
+                    ProductCacheScripts.eval(connection, ProductCacheScripts.PUT_IF_NEWER, chunk.size(), args)));
+            if (written != null)
+                staleWrites.increment(chunk.size() - written);
+        }
+    }
+
+    @Override
+    public void evict(long productId) {
+        metrics.time("evict", () -> redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(key(productId))));
+    }
+
+    @Override
+    public void evictAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return;
+        var keys = productIds.stream().map(this::key).toArray(byte[][]::new);
+        metrics.time("evict", () -> redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(keys)));
+    }
+
+    protected byte[] encode(ProductCacheEntity product) {
+        return ProductCacheCodec.encode(product);
+    }
+
+    protected Optional<ProductCacheEntity> decode(byte[] bytes) {
+        return ProductCacheCodec.decode(bytes);
+    }
+
+    protected byte[] getRaw(long productId) {
+        return metrics.time("get", () -> redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(key(productId))));
+    }
+
+    protected CacheTierMetrics metrics() {
+        return metrics;
+    }
+
+    private byte[] key(long productId) {
+        return (keyPrefix + productId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.productsapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class CacheTierMetrics {
+
+    private final MeterRegistry registry;
+    private final String tier;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public CacheTierMetrics(MeterRegistry registry, String tier) {
+        this.registry = registry;
+        this.tier = tier;
+        this.hits = counter(registry, tier, "hit");
+        this.misses = counter(registry, tier, "miss");
+    }
+
+    public void record(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    // One Redis round trip (single command, MGET, pipeline or script) of the given cache operation
+    public <T> T time(String operation, Supplier<T> call) {
+        return timers.computeIfAbsent(operation, key -> Timer.builder("products.cache.redis")
+                        .tag("tier", tier)
+                        .tag("operation", operation)
+                        .register(registry))
+                .record(call);
+    }
+
+    public void time(String operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private static Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("products.cache.requests")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.productsapi.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// A cache hit as stored: the response body for caches that keep JSON, the entity otherwise, or both on the heap
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CachedProduct {
+    private final ProductJson json;
+    private final ProductCacheEntity entity;
+
+    public static CachedProduct of(ProductJson json) {
+        return new CachedProduct(json, null);
+    }
+
+    public static CachedProduct of(ProductCacheEntity entity) {
+        return new CachedProduct(null, entity);
+    }
+
+    public static CachedProduct of(ProductJson json, ProductCacheEntity entity) {
+        return new CachedProduct(json, entity);
+    }
+}
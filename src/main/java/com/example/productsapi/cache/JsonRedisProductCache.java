@@ -0,0 +1,82 @@
+package com.example.productsapi.cache;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+public class JsonRedisProductCache extends BinaryRedisProductCache {
+
+    static final byte FORMAT_JSON = 3;
+
+    private static final byte HAS_VERSION = 1;
+    private static final int HEADER_SIZE = 2 + Long.BYTES;
+
+    private final ObjectMapper mapper;
+
+    public JsonRedisProductCache(StringRedisTemplate redisTemplate,
+                                 String keyPrefix,
+                                 Duration timeToLive,
+                                 ObjectMapper mapper,
+                                 MeterRegistry registry) {
+        super(redisTemplate, keyPrefix, timeToLive, registry);
+        this.mapper = mapper;
+    }
+
+    @Override
+    public Optional<CachedProduct> getPreferringJson(long productId) {
+        var bytes = getRaw(productId);
+        var present = isJson(bytes);
+        metrics().record(present);
+        if (!present)
+            return Optional.empty();
+        var version = (bytes[1] & HAS_VERSION) != 0 ? ByteBuffer.wrap(bytes, 2, Long.BYTES).getLong() : null;
+        return Optional.of(CachedProduct.of(new ProductJson(version, Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length))));
+    }
+
+    @Override
+    protected byte[] encode(ProductCacheEntity product) {
+        return encode(product, mapper);
+    }
+
+    @Override
+    protected Optional<ProductCacheEntity> decode(byte[] bytes) {
+        return decode(bytes, mapper);
+    }
+
+    public static byte[] encode(ProductCacheEntity product, ObjectMapper mapper) {
+        var json = ProductJson.of(product, mapper).getJson();
+        return ByteBuffer.allocate(HEADER_SIZE + json.length)
+                .put(FORMAT_JSON)
+                .put(product.getVersion() == null ? 0 : HAS_VERSION)
+                .putLong(product.getVersion() == null ? 0 : product.getVersion())
+                .put(json)
+                .array();
+    }
+
+    public static Optional<ProductCacheEntity> decode(byte[] bytes, ObjectMapper mapper) {
+        if (!isJson(bytes))
+            return Optional.empty();
+        ProductDto dto;
+        try {
+            dto = mapper.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, ProductDto.class);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        var product = new ProductCacheEntity();
+        product.setId(dto.getId());
+        product.setName(dto.getName());
+        product.setPrice(dto.getPrice());
+        product.setVersion(dto.getVersion());
+        return Optional.of(product);
+    }
+
+    private static boolean isJson(byte[] bytes) {
+        return bytes != null && bytes.length > HEADER_SIZE && bytes[0] == FORMAT_JSON;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.productsapi.cache;
+
+import com.example.productsapi.events.ProductChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public class MissingProductCache {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration timeToLive;
+    private final Supplier<ProductIdFilter> filters;
+    private final AtomicLong filterGeneration = new AtomicLong();
+    private final CacheTierMetrics metrics;
+    private volatile ProductIdFilter filter;
+    private volatile ProductIdFilter rebuilding;
+
+    public MissingProductCache(StringRedisTemplate redisTemplate,
+                               String keyPrefix,
+                               Duration timeToLive,
+                               Supplier<ProductIdFilter> filters,
+                               MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.timeToLive = timeToLive;
+        this.filters = filters;
+        this.filter = filters == null ? null : filters.get();
+        this.metrics = new CacheTierMetrics(registry, "missing");
+    }
+
+    public boolean isKnownMissing(long productId) {
+        var current = filter;
+        var missing = (current != null && !current.mightContain(productId))
+                || (!timeToLive.isZero() && Boolean.TRUE.equals(redisTemplate.hasKey(key(productId))));
+        metrics.record(missing);
+        return missing;
+    }
+
+    public void markMissing(long productId) {
+        if (!timeToLive.isZero())
+            redisTemplate.opsForValue().set(key(productId), "", timeToLive);
+    }
+
+    // Tombstones for a multi-get's misses go out in one pipeline instead of one round trip each
+    public void markAllMissing(Collection<Long> productIds) {
+        if (timeToLive.isZero() || productIds.isEmpty())
+            return;
+        if (productIds.size() == 1) {
+            markMissing(productIds.iterator().next());
+            return;
+        }
+        var expiration = Expiration.from(timeToLive);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (var productId : productIds)
+                connection.set(key(productId).getBytes(StandardCharsets.UTF_8), new byte[0], expiration,
+                        RedisStringCommands.SetOption.upsert());
+            return null;
+        });
+    }
+
+    public boolean hasFilter() {
+        return filters != null;
+    }
+
+    // Fills a fresh filter and swaps it in; ids saved meanwhile go to both filters. The new filter only answers
+    // authoritatively when no suspendFilter() happened during the rebuild, rebuilds must not overlap
+    public boolean rebuildFilter(Consumer<ProductIdFilter> loader) {
+        if (filters == null)
+            return false;
+        var generation = filterGeneration.get();
+        var next = filters.get();
+        rebuilding = next;
+        try {
+            loader.accept(next);
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            throw e;
+        }
+        synchronized (filterGeneration) {
+            if (filterGeneration.get() == generation)
+                next.markReady();
+            filter = next;
+            rebuilding = null;
+        }
+        return next.isReady();
+    }
+
+    // Saved events may have been missed (e.g. while the change relay was disconnected): until the next rebuild
+    // an id that is not in the filter falls through to Redis and the database
+    public void suspendFilter() {
+        synchronized (filterGeneration) {
+            filterGeneration.incrementAndGet();
+            if (filter != null)
+                filter.markStale();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SAVED && filters != null) {
+            var current = filter;
+            var next = rebuilding;
+            event.getProductIds().forEach(id -> {
+                current.put(id);
+                if (next != null)
+                    next.put(id);
+            });
+        }
+        if (event.isRemote() || timeToLive.isZero())
+            return;
+        if (event.getType() == ProductChangedEvent.Type.SAVED)
+            redisTemplate.delete(event.getProductIds().stream().map(this::key).collect(Collectors.toList()));
+        else
+            markAllMissing(event.getProductIds());
+    }
+
+    private String key(long productId) {
+        return keyPrefix + productId;
+    }
+}
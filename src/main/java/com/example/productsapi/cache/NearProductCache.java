@@ -0,0 +1,182 @@
+package com.example.productsapi.cache;
+
+import com.example.productsapi.events.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+public class NearProductCache implements ProductCache {
+
+    private final Cache<Long, CachedProduct> local;
+    private final ProductCache remote;
+    private final CacheTierMetrics metrics;
+    // Bumped by every invalidation. A heap fill from a remote read that started before one is dropped, so a read
+    // racing an evict cannot put the evicted row back after the remote tier has let it go
+    private final AtomicLong invalidations = new AtomicLong();
+    // Set when the remote tier stores JSON, so heap entries carry the response body as well as the entity
+    private final ObjectMapper mapper;
+
+    public NearProductCache(ProductCache remote, long maximumSize, Duration timeToLive, MeterRegistry registry) {
+        this(remote, maximumSize, timeToLive, null, registry);
+    }
+
+    public NearProductCache(ProductCache remote,
+                            long maximumSize,
+                            Duration timeToLive,
+                            ObjectMapper mapper,
+                            MeterRegistry registry) {
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.remote = remote;
+        this.mapper = mapper;
+        this.metrics = new CacheTierMetrics(registry, "l1");
+    }
+
+    @Override
+    public Optional<ProductCacheEntity> get(long productId) {
+        var product = local.getIfPresent(productId);
+        metrics.record(product != null);
+        if (product != null)
+            return Optional.of(product.getEntity());
+
+        var generation = invalidations.get();
+        var result = remote.get(productId);
+        result.ifPresent(p -> fill(p, generation));
+        return result;
+    }
+
+    @Override
+    public Optional<CachedProduct> getPreferringJson(long productId) {
+        var product = local.getIfPresent(productId);
+        metrics.record(product != null);
+        if (product != null)
+            return Optional.of(product);
+
+        var generation = invalidations.get();
+        var result = remote.getPreferringJson(productId);
+        result.ifPresent(p -> fill(p, generation));
+        return result;
+    }
+
+    @Override
+    public Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds) {
+        var result = new HashMap<Long, ProductCacheEntity>();
+        local.getAllPresent(productIds).forEach((id, product) -> result.put(id, product.getEntity()));
+        productIds.forEach(id -> metrics.record(result.containsKey(id)));
+        if (result.size() == productIds.size())
+            return result;
+
+        var misses = productIds.stream()
+                .filter(id -> !result.containsKey(id))
+                .collect(Collectors.toList());
+        var generation = invalidations.get();
+        var loaded = remote.getAll(misses);
+        loaded.values().forEach(p -> fill(p, generation));
+        result.putAll(loaded);
+        return result;
+    }
+
+    @Override
+    public void put(ProductCacheEntity product) {
+        remote.put(product);
+        putLocal(product);
+    }
+
+    @Override
+    public void putAll(Collection<ProductCacheEntity> products) {
+        remote.putAll(products);
+        products.forEach(this::putLocal);
+    }
+
+    @Override
+    public void evict(long productId) {
+        try {
+            remote.evict(productId);
+        } finally {
+            invalidations.incrementAndGet();
+            local.invalidate(productId);
+        }
+    }
+
+    @Override
+    public void evictAll(Collection<Long> productIds) {
+        try {
+            remote.evictAll(productIds);
+        } finally {
+            invalidations.incrementAndGet();
+            local.invalidateAll(productIds);
+        }
+    }
+
+    @Override
+    public void close() {
+        remote.close();
+    }
+
+    private void putLocal(ProductCacheEntity product) {
+        local.asMap().merge(product.getId(), cached(product), NearProductCache::newer);
+    }
+
+    private void fill(ProductCacheEntity product, long generation) {
+        fill(product.getId(), cached(product), generation);
+    }
+
+    // A JSON hit from the remote tier is decoded once here, so later heap hits need no Jackson work
+    private void fill(CachedProduct product, long generation) {
+        if (product.getEntity() != null) {
+            fill(product.getEntity().getId(), product, generation);
+            return;
+        }
+        if (mapper == null)
+            return;
+        try {
+            var entity = product.getJson().toEntity(mapper);
+            fill(entity.getId(), CachedProduct.of(product.getJson(), entity), generation);
+        } catch (IOException e) {
+            // Leave an undecodable body to the remote tier
+        }
+    }
+
+    // Checked inside compute, which is atomic with invalidate for the same key, and invalidations is bumped before
+    // invalidating: either the fill lands first and is invalidated, or it sees the new generation and is dropped
+    private void fill(long productId, CachedProduct product, long generation) {
+        local.asMap().compute(productId, (id, current) -> {
+            if (invalidations.get() != generation)
+                return current;
+            return current == null ? product : newer(current, product);
+        });
+    }
+
+    private CachedProduct cached(ProductCacheEntity product) {
+        var json = mapper != null ? ProductJson.of(product, mapper) : null;
+        return CachedProduct.of(json, product);
+    }
+
+    private static CachedProduct newer(CachedProduct current, CachedProduct update) {
+        var currentVersion = current.getEntity().getVersion();
+        var updateVersion = update.getEntity().getVersion();
+        if (currentVersion != null && updateVersion != null && currentVersion > updateVersion)
+            return current;
+        return update;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote()) {
+            invalidations.incrementAndGet();
+            local.invalidateAll(event.getProductIds());
+        }
+    }
+}
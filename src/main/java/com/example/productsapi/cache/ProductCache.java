@@ -0,0 +1,21 @@
+package com.example.productsapi.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ProductCache extends AutoCloseable {
+    Optional<ProductCacheEntity> get(long productId);
+    Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds);
+    void put(ProductCacheEntity product);
+    void putAll(Collection<ProductCacheEntity> products);
+    void evict(long productId);
+    void evictAll(Collection<Long> productIds);
+
+    default Optional<CachedProduct> getPreferringJson(long productId) {
+        return get(productId).map(CachedProduct::of);
+    }
+
+    @Override
+    default void close() { }
+}
@@ -0,0 +1,66 @@
+package com.example.productsapi.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+public final class ProductCacheCodec {
+
+    static final byte FORMAT_V1 = 1;
+    static final byte FORMAT_V2 = 2;
+    // The UTF-8 name length is stored as an unsigned short
+    static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private static final byte HAS_NAME = 1;
+    private static final byte HAS_PRICE = 1 << 1;
+    private static final byte HAS_VERSION = 1 << 2;
+
+    private ProductCacheCodec() { }
+
+    public static byte[] encode(ProductCacheEntity product) {
+        var name = product.getName() == null ? null : product.getName().getBytes(StandardCharsets.UTF_8);
+        if (name != null && name.length > MAX_NAME_BYTES)
+            throw new IllegalArgumentException("Product " + product.getId() + " has a name of " + name.length
+                    + " UTF-8 bytes, the binary cache format holds at most " + MAX_NAME_BYTES);
+        var size = 2 + Long.BYTES
+                + (product.getPrice() == null ? 0 : Double.BYTES)
+                + (product.getVersion() == null ? 0 : Long.BYTES)
+                + (name == null ? 0 : Short.BYTES + name.length);
+        var flags = (byte) ((name == null ? 0 : HAS_NAME)
+                | (product.getPrice() == null ? 0 : HAS_PRICE)
+                | (product.getVersion() == null ? 0 : HAS_VERSION));
+
+        var buffer = ByteBuffer.allocate(size)
+                .put(FORMAT_V2)
+                .put(flags)
+                .putLong(product.getId());
+        if (product.getPrice() != null)
+            buffer.putDouble(product.getPrice());
+        if (product.getVersion() != null)
+            buffer.putLong(product.getVersion());
+        if (name != null)
+            buffer.putShort((short) name.length).put(name);
+        return buffer.array();
+    }
+
+    public static Optional<ProductCacheEntity> decode(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 + Long.BYTES || (bytes[0] != FORMAT_V1 && bytes[0] != FORMAT_V2))
+            return Optional.empty();
+
+        var buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        var flags = buffer.get();
+        var product = new ProductCacheEntity();
+        product.setId(buffer.getLong());
+        if ((flags & HAS_PRICE) != 0)
+            product.setPrice(buffer.getDouble());
+        if ((flags & HAS_VERSION) != 0)
+            product.setVersion(buffer.getLong());
+        if ((flags & HAS_NAME) != 0) {
+            var length = Short.toUnsignedInt(buffer.getShort());
+            if (length > buffer.remaining())
+                return Optional.empty();
+            product.setName(new String(bytes, buffer.position(), length, StandardCharsets.UTF_8));
+        }
+        return Optional.of(product);
+    }
+}
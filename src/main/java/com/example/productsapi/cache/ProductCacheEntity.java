@@ -16,4 +16,5 @@ public class ProductCacheEntity implements Serializable {
     private long id;
     private String name;
     private Double price;
+    private Long version;
 }
@@ -0,0 +1,45 @@
+package com.example.productsapi.cache;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+import java.nio.charset.StandardCharsets;
+
+public final class ProductCacheScripts {
+
+    public static final RedisScript<Long> PUT_IF_NEWER = script("redis/put-if-newer.lua");
+    public static final RedisScript<Long> HASH_PUT_IF_NEWER = script("redis/hash-put-if-newer.lua");
+    public static final int BATCH_SIZE = 500;
+
+    private ProductCacheScripts() { }
+
+    public static Long eval(RedisConnection connection, RedisScript<Long> script, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return connection.scriptingCommands().evalSha(script.getSha1(), ReturnType.INTEGER, numKeys, keysAndArgs);
+        } catch (DataAccessException e) {
+            var cause = NestedExceptionUtils.getMostSpecificCause(e);
+            if (cause.getMessage() == null || !cause.getMessage().contains("NOSCRIPT"))
+                throw e;
+            return connection.scriptingCommands().eval(source(script), ReturnType.INTEGER, numKeys, keysAndArgs);
+        }
+    }
+
+    public static byte[] version(ProductCacheEntity product) {
+        return bytes(product.getVersion() == null ? "" : product.getVersion().toString());
+    }
+
+    public static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] source(RedisScript<Long> script) {
+        return bytes(script.getScriptAsString());
+    }
+
+    private static RedisScript<Long> script(String location) {
+        return RedisScript.of(new ClassPathResource(location), Long.class);
+    }
+}
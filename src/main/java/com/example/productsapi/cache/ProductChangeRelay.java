@@ -0,0 +1,61 @@
+package com.example.productsapi.cache;
+
+import com.example.productsapi.events.ProductChangedEvent;
+import com.example.productsapi.events.ProductChangesSubscribedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class ProductChangeRelay implements MessageListener, SubscriptionListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final String channel;
+
+    public ProductChangeRelay(StringRedisTemplate redisTemplate, ApplicationEventPublisher publisher, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.publisher = publisher;
+        this.channel = channel;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isRemote() && !event.getProductIds().isEmpty())
+            redisTemplate.convertAndSend(channel, encode(nodeId, event));
+    }
+
+    public static String encode(String origin, ProductChangedEvent event) {
+        var ids = event.getProductIds()
+                .stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return origin + "|" + event.getType() + "|" + ids;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        var parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId))
+            return;
+        var ids = Arrays.stream(parts[2].split(","))
+                .filter(id -> !id.isBlank())
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        if (ids.isEmpty())
+            return;
+        publisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.valueOf(parts[1]), ids, true));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        publisher.publishEvent(new ProductChangesSubscribedEvent());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.productsapi.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ProductIdFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    public ProductIdFilter(long expectedIds, double falsePositiveRate) {
+        var n = Math.max(1L, expectedIds);
+        var m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (m + 63) >>> 6));
+        this.bitCount = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(long productId) {
+        var h1 = mix(productId);
+        var h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++)
+            set(Math.floorMod(h1 + i * h2, bitCount));
+    }
+
+    public boolean mightContain(long productId) {
+        if (!ready)
+            return true;
+        var h1 = mix(productId);
+        var h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++)
+            if (!get(Math.floorMod(h1 + i * h2, bitCount)))
+                return false;
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void markStale() {
+        ready = false;
+    }
+
+    private void set(long index) {
+        var word = (int) (index >>> 6);
+        var mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0)
+                return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean get(long index) {
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.productsapi.cache;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@Getter
+@AllArgsConstructor
+public class ProductJson {
+    private final Long version;
+    private final byte[] json;
+
+    public static ProductJson of(ProductCacheEntity product, ObjectMapper mapper) {
+        try {
+            var dto = new ProductDto(product.getId(), product.getName(), product.getPrice(), product.getVersion());
+            return new ProductJson(product.getVersion(), mapper.writeValueAsBytes(dto));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ProductCacheEntity toEntity(ObjectMapper mapper) throws IOException {
+        var dto = mapper.readValue(json, ProductDto.class);
+        var product = new ProductCacheEntity();
+        product.setId(dto.getId());
+        product.setName(dto.getName());
+        product.setPrice(dto.getPrice());
+        product.setVersion(dto.getVersion());
+        return product;
+    }
+}
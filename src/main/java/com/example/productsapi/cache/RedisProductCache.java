@@ -0,0 +1,142 @@
+package com.example.productsapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class RedisProductCache implements ProductCache {
+
+    private final ProductCacheRepository repository;
+    private final RedisConverter converter;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheTierMetrics metrics;
+    private final Counter staleWrites;
+    private final String keyspace;
+
+    public RedisProductCache(ProductCacheRepository repository,
+                             RedisConverter converter,
+                             StringRedisTemplate redisTemplate,
+                             MeterRegistry registry) {
+        this.repository = repository;
+        this.converter = converter;
+        this.redisTemplate = redisTemplate;
+        this.metrics = new CacheTierMetrics(registry, "l2");
+        this.staleWrites = Counter.builder("products.cache.stale-writes").tag("tier", "l2").register(registry);
+        this.keyspace = converter.getMappingContext()
+                .getRequiredPersistentEntity(ProductCacheEntity.class)
+                .getKeySpace();
+    }
+
+    @Override
+    public Optional<ProductCacheEntity> get(long productId) {
+        var result = metrics.time("get", () -> repository.findById(productId));
+        metrics.record(result.isPresent());
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return Map.of();
+        var ids = List.copyOf(productIds);
+        var hashes = metrics.time("getAll", () -> redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (var productId : ids)
+                connection.hGetAll(key(String.valueOf(productId)));
+            return connection.closePipeline();
+        }));
+
+        var result = new HashMap<Long, ProductCacheEntity>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            var hash = (Map<byte[], byte[]>) hashes.get(i);
+            var hit = hash != null && !hash.isEmpty();
+            metrics.record(hit);
+            if (hit)
+                result.put(ids.get(i), converter.read(ProductCacheEntity.class, new RedisData(Bucket.newBucketFromRawMap(hash))));
+        }
+        return result;
+    }
+
+    @Override
+    public void put(ProductCacheEntity product) {
+        putAll(List.of(product));
+    }
+
+    @Override
+    public void putAll(Collection<ProductCacheEntity> products) {
+        if (products.isEmpty())
+            return;
+        var batch = List.copyOf(products);
+        for (int from = 0; from < batch.size(); from += ProductCacheScripts.BATCH_SIZE) {
+            var chunk = batch.subList(from, Math.min(from + ProductCacheScripts.BATCH_SIZE, batch.size()));
+            var keys = new ArrayList<byte[]>(chunk.size() + 1);
+            var args = new ArrayList<byte[]>(chunk.size() * 12);
+            keys.add(bytes(keyspace));
+            for (var product : chunk) {
+                var data = new RedisData();
+                converter.write(product, data);
+                var fields = data.getBucket().rawMap();
+                keys.add(key(data.getId()));
+                args.add(ProductCacheScripts.version(product));
+                args.add(bytes(data.getId()));
+                args.add(bytes(String.valueOf(fields.size() * 2)));
+                fields.forEach((field, value) -> {
+                    args.add(field);
+                    args.add(value);
+                });
+            }
+            keys.addAll(args);
+            var keysAndArgs = keys.toArray(byte[][]::new);
+            var written = metrics.time("put", () -> redisTemplate.execute((RedisCallback<Long>) connection ->
+                    ProductCacheScripts.eval(connection, ProductCacheScripts.HASH_PUT_IF_NEWER, chunk.size() + 1, keysAndArgs)));
+            if (written != null)
+                staleWrites.increment(chunk.size() - written);
+        }
+    }
+
+    @Override
+    public void evict(long productId) {
+        metrics.time("evict", () -> repository.deleteById(productId));
+    }
+
+    @Override
+    public void evictAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return;
+        metrics.time("evict", () -> pipelined(connection -> {
+            for (var productId : productIds) {
+                connection.del(key(String.valueOf(productId)));
+                connection.sRem(bytes(keyspace), bytes(String.valueOf(productId)));
+            }
+        }));
+    }
+
+    private void pipelined(Consumer<RedisConnection> commands) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            commands.accept(connection);
+            return null;
+        });
+    }
+
+    private byte[] key(String id) {
+        return bytes(keyspace + ":" + id);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.productsapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindProductCache implements ProductCache {
+
+    public enum BackPressurePolicy { BLOCK, CALLER_RUNS, DROP }
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindProductCache.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ProductCache remote;
+    private final BackPressurePolicy policy;
+    private final int batchSize;
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> queue;
+    private final Thread worker;
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter failed;
+    private volatile boolean running = true;
+
+    public WriteBehindProductCache(ProductCache remote,
+                                   int capacity,
+                                   int batchSize,
+                                   BackPressurePolicy policy,
+                                   MeterRegistry registry) {
+        this.remote = remote;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.coalesced = Counter.builder("products.cache.write-behind.coalesced").register(registry);
+        this.rejected = Counter.builder("products.cache.write-behind.rejected")
+                .tag("policy", policy.name().toLowerCase())
+                .register(registry);
+        this.failed = Counter.builder("products.cache.write-behind.failed").register(registry);
+        Gauge.builder("products.cache.write-behind.depth", pending, Map::size).register(registry);
+        Gauge.builder("products.cache.write-behind.lag", this, WriteBehindProductCache::lagSeconds)
+                .baseUnit("seconds")
+                .register(registry);
+
+        this.worker = new Thread(this::run, "product-cache-write-behind");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public Optional<ProductCacheEntity> get(long productId) {
+        var write = pending.get(productId);
+        if (write != null)
+            return Optional.ofNullable(write.product);
+        return remote.get(productId);
+    }
+
+    @Override
+    public Optional<CachedProduct> getPreferringJson(long productId) {
+        var write = pending.get(productId);
+        if (write != null)
+            return Optional.ofNullable(write.product).map(CachedProduct::of);
+        return remote.getPreferringJson(productId);
+    }
+
+    @Override
+    public Map<Long, ProductCacheEntity> getAll(Collection<Long> productIds) {
+        var result = new HashMap<Long, ProductCacheEntity>(productIds.size());
+        var misses = new ArrayList<Long>(productIds.size());
+        for (var productId : productIds) {
+            var write = pending.get(productId);
+            if (write == null)
+                misses.add(productId);
+            else if (write.product != null)
+                result.put(productId, write.product);
+        }
+        if (!misses.isEmpty())
+            result.putAll(remote.getAll(misses));
+        return result;
+    }
+
+    @Override
+    public void put(ProductCacheEntity product) {
+        enqueue(product.getId(), product);
+    }
+
+    @Override
+    public void putAll(Collection<ProductCacheEntity> products) {
+        products.forEach(this::put);
+    }
+
+    @Override
+    public void evict(long productId) {
+        enqueue(productId, null);
+    }
+
+    @Override
+    public void evictAll(Collection<Long> productIds) {
+        productIds.forEach(this::evict);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < MAX_ATTEMPTS && !queue.isEmpty(); i++) {
+            var remaining = new ArrayList<Long>(queue.size());
+            queue.drainTo(remaining);
+            flush(remaining);
+        }
+        remote.close();
+    }
+
+    private void enqueue(long productId, ProductCacheEntity product) {
+        var write = new PendingWrite(product, System.nanoTime(), 1);
+        var previous = pending.put(productId, write);
+        if (previous != null) {
+            write.enqueuedAt = previous.enqueuedAt;
+            coalesced.increment();
+            return;
+        }
+        if (queue.offer(productId))
+            return;
+
+        rejected.increment();
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(productId);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    writeNow(productId, write);
+                }
+                break;
+            case CALLER_RUNS:
+                writeNow(productId, write);
+                break;
+            case DROP:
+                if (pending.remove(productId, write))
+                    remote.evict(productId);
+                break;
+        }
+    }
+
+    private void writeNow(long productId, PendingWrite write) {
+        if (!pending.remove(productId, write))
+            return;
+        if (write.product != null)
+            remote.put(write.product);
+        else
+            remote.evict(productId);
+    }
+
+    private void run() {
+        var batch = new ArrayList<Long>(batchSize);
+        while (running) {
+            try {
+                var first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failed.increment(batch.size());
+                log.warn("Could not write {} products to the cache", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(Collection<Long> productIds) {
+        var writes = new HashMap<Long, PendingWrite>(productIds.size());
+        var puts = new ArrayList<ProductCacheEntity>(productIds.size());
+        var evictions = new ArrayList<Long>();
+        for (var productId : productIds) {
+            var write = pending.remove(productId);
+            if (write == null)
+                continue;
+            writes.put(productId, write);
+            if (write.product != null)
+                puts.add(write.product);
+            else
+                evictions.add(productId);
+        }
+        try {
+            remote.putAll(puts);
+            remote.evictAll(evictions);
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} products to the cache, retrying them", writes.size(), e);
+            retry(writes);
+        }
+    }
+
+    // A failed write goes back in the queue unless a newer one for the same product is already pending. After
+    // MAX_ATTEMPTS, or when the queue is full, the product is evicted instead so the cache cannot keep the old row
+    private void retry(Map<Long, PendingWrite> writes) {
+        var abandoned = new ArrayList<Long>();
+        writes.forEach((productId, write) -> {
+            if (write.attempts >= MAX_ATTEMPTS) {
+                abandoned.add(productId);
+                return;
+            }
+            var retry = new PendingWrite(write.product, write.enqueuedAt, write.attempts + 1);
+            if (pending.putIfAbsent(productId, retry) != null)
+                return;
+            if (!queue.offer(productId) && pending.remove(productId) != null)
+                abandoned.add(productId);
+        });
+        if (abandoned.isEmpty())
+            return;
+        failed.increment(abandoned.size());
+        try {
+            remote.evictAll(abandoned);
+        } catch (RuntimeException e) {
+            log.warn("Could not evict {} products from the cache after failed writes", abandoned.size(), e);
+        }
+    }
+
+    private double lagSeconds() {
+        var head = queue.peek();
+        var write = head == null ? null : pending.get(head);
+        return write == null ? 0 : (System.nanoTime() - write.enqueuedAt) / 1e9;
+    }
+
+    private static class PendingWrite {
+        private final ProductCacheEntity product;
+        private final int attempts;
+        private volatile long enqueuedAt;
+
+        private PendingWrite(ProductCacheEntity product, long enqueuedAt, int attempts) {
+            this.product = product;
+            this.enqueuedAt = enqueuedAt;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.productsapi.config;
+
+import com.example.productsapi.cache.BinaryRedisProductCache;
+import com.example.productsapi.cache.JsonRedisProductCache;
+import com.example.productsapi.cache.MissingProductCache;
+import com.example.productsapi.cache.NearProductCache;
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheRepository;
+import com.example.productsapi.cache.ProductChangeRelay;
+import com.example.productsapi.cache.ProductIdFilter;
+import com.example.productsapi.cache.RedisProductCache;
+import com.example.productsapi.cache.SingleFlight;
+import com.example.productsapi.cache.WriteBehindProductCache;
+import com.example.productsapi.entities.ProductEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${products.cache.format:hash}")
+    private String cacheFormat;
+
+    @Value("${products.cache.key-prefix:product:}")
+    private String cacheKeyPrefix;
+
+    @Value("${products.cache.time-to-live:1h}")
+    private Duration cacheTimeToLive;
+
+    @Value("${products.cache.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${products.cache.write-behind.capacity:10000}")
+    private int writeBehindCapacity;
+
+    @Value("${products.cache.write-behind.batch-size:500}")
+    private int writeBehindBatchSize;
+
+    @Value("${products.cache.write-behind.policy:caller-runs}")
+    private WriteBehindProductCache.BackPressurePolicy writeBehindPolicy;
+
+    @Value("${products.cache.near.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${products.cache.near.maximum-size:10000}")
+    private long nearCacheMaximumSize;
+
+    @Value("${products.cache.near.time-to-live:30s}")
+    private Duration nearCacheTimeToLive;
+
+    @Value("${products.cache.changes-channel:products:changes}")
+    private String changesChannel;
+
+    @Value("${products.cache.missing.key-prefix:product:missing:}")
+    private String missingKeyPrefix;
+
+    @Value("${products.cache.missing.time-to-live:30s}")
+    private Duration missingTimeToLive;
+
+    @Value("${products.cache.missing.bloom-filter.enabled:false}")
+    private boolean bloomFilterEnabled;
+
+    @Value("${products.cache.missing.bloom-filter.expected-ids:1000000}")
+    private long bloomFilterExpectedIds;
+
+    @Value("${products.cache.missing.bloom-filter.false-positive-rate:0.01}")
+    private double bloomFilterFalsePositiveRate;
+
+    @Bean
+    public ProductCache productCache(ProductCacheRepository repository,
+                                     RedisConverter converter,
+                                     StringRedisTemplate redisTemplate,
+                                     ObjectMapper mapper,
+                                     MeterRegistry registry) {
+        ProductCache cache;
+        switch (cacheFormat) {
+            case "binary":
+                cache = new BinaryRedisProductCache(redisTemplate, cacheKeyPrefix, cacheTimeToLive, registry);
+                break;
+            case "json":
+                cache = new JsonRedisProductCache(redisTemplate, cacheKeyPrefix, cacheTimeToLive, mapper, registry);
+                break;
+            default:
+                cache = new RedisProductCache(repository, converter, redisTemplate, registry);
+        }
+        if (writeBehindEnabled)
+            cache = new WriteBehindProductCache(cache, writeBehindCapacity, writeBehindBatchSize, writeBehindPolicy, registry);
+        if (nearCacheEnabled)
+            cache = new NearProductCache(cache, nearCacheMaximumSize, nearCacheTimeToLive,
+                    "json".equals(cacheFormat) ? mapper : null, registry);
+        return cache;
+    }
+
+    @Bean
+    public MissingProductCache missingProductCache(StringRedisTemplate redisTemplate, MeterRegistry registry) {
+        Supplier<ProductIdFilter> filters = bloomFilterEnabled
+                ? () -> new ProductIdFilter(bloomFilterExpectedIds, bloomFilterFalsePositiveRate)
+                : null;
+        return new MissingProductCache(redisTemplate, missingKeyPrefix, missingTimeToLive, filters, registry);
+    }
+
+    @Bean
+    public SingleFlight<Long, Optional<ProductEntity>> productLoads(MeterRegistry registry) {
+        return new SingleFlight<>("products.cache.loads", registry);
+    }
+
+    @Bean
+    public ProductChangeRelay productChangeRelay(StringRedisTemplate redisTemplate, ApplicationEventPublisher publisher) {
+        return new ProductChangeRelay(redisTemplate, publisher, changesChannel);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer productChangeListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                        ProductChangeRelay relay) {
+        var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(relay, new ChannelTopic(changesChannel));
+        return container;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.productsapi.config;
+
+import com.example.productsapi.limits.AdaptiveConcurrencyLimit;
+import com.example.productsapi.limits.ConcurrencyLimitInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "products.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    @Value("${products.concurrency-limit.read.initial-limit:100}")
+    private int readInitialLimit;
+
+    @Value("${products.concurrency-limit.read.min-limit:10}")
+    private int readMinLimit;
+
+    @Value("${products.concurrency-limit.read.max-limit:150}")
+    private int readMaxLimit;
+
+    @Value("${products.concurrency-limit.write.initial-limit:20}")
+    private int writeInitialLimit;
+
+    @Value("${products.concurrency-limit.write.min-limit:5}")
+    private int writeMinLimit;
+
+    @Value("${products.concurrency-limit.write.max-limit:50}")
+    private int writeMaxLimit;
+
+    @Value("${products.concurrency-limit.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${products.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${products.concurrency-limit.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Bean
+    public AdaptiveConcurrencyLimit readConcurrencyLimit() {
+        return new AdaptiveConcurrencyLimit("read", readInitialLimit, readMinLimit, readMaxLimit, tolerance, smoothing);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimit writeConcurrencyLimit() {
+        return new AdaptiveConcurrencyLimit("write", writeInitialLimit, writeMinLimit, writeMaxLimit, tolerance, smoothing);
+    }
+
+    @Bean
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor() {
+        return new ConcurrencyLimitInterceptor(readConcurrencyLimit(), writeConcurrencyLimit(), retryAfter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor())
+                .addPathPatterns("/products", "/products/**");
+    }
+}
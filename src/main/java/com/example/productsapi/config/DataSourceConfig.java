@@ -0,0 +1,68 @@
+package com.example.productsapi.config;
+
+import com.example.productsapi.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnExpression("!'${products.datasource.replicas:}'.isBlank()")
+public class DataSourceConfig {
+
+    @Value("${products.datasource.replicas}")
+    private List<String> replicaUrls;
+
+    @Value("${products.datasource.replica-lag-query:}")
+    private String replicaLagQuery;
+
+    @Value("${products.datasource.replica-max-lag:5s}")
+    private Duration replicaMaxLag;
+
+    @Value("${products.datasource.replica-check-interval:5s}")
+    private Duration replicaCheckInterval;
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties, Environment environment) {
+        var primary = pool(ReplicaRoutingDataSource.PRIMARY, properties.determineUrl(), properties, environment);
+        var replicas = new ArrayList<DataSource>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            var replica = pool("replica-" + (i + 1), replicaUrls.get(i).trim(), properties, environment);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, replicaLagQuery, replicaMaxLag, replicaCheckInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static HikariDataSource pool(String name,
+                                         String url,
+                                         DataSourceProperties properties,
+                                         Environment environment) {
+        var pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
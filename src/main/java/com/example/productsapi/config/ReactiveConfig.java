@@ -0,0 +1,93 @@
+package com.example.productsapi.config;
+
+import com.example.productsapi.cache.JsonRedisProductCache;
+import com.example.productsapi.reactive.ProductHandler;
+import com.example.productsapi.reactive.ReactiveIdAllocator;
+import com.example.productsapi.reactive.ReactiveProductCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    @Value("${products.cache.format:hash}")
+    private String cacheFormat;
+
+    @Value("${products.cache.key-prefix:product:}")
+    private String cacheKeyPrefix;
+
+    @Value("${products.cache.time-to-live:1h}")
+    private Duration cacheTimeToLive;
+
+    @Value("${products.reactive.id-strategy:table}")
+    private ReactiveIdAllocator.Strategy idStrategy;
+
+    @Value("${products.reactive.id-block-size:50}")
+    private int idBlockSize;
+
+    @Bean
+    public ReactiveProductCache reactiveProductCache(ReactiveRedisConnectionFactory connectionFactory,
+                                                     ObjectMapper mapper,
+                                                     MeterRegistry registry) {
+        var context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        var redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, context);
+        switch (cacheFormat) {
+            case "binary":
+                return new ReactiveProductCache(redisTemplate, cacheKeyPrefix, cacheTimeToLive, registry);
+            case "json":
+                return new ReactiveProductCache(redisTemplate, cacheKeyPrefix, cacheTimeToLive,
+                        product -> JsonRedisProductCache.encode(product, mapper),
+                        bytes -> JsonRedisProductCache.decode(bytes, mapper),
+                        registry);
+            default:
+                // Servlet nodes with the same setting would write @RedisHash hashes this stack cannot read
+                throw new IllegalStateException("products.cache.format=" + cacheFormat
+                        + " is not supported by the reactive stack, use 'binary' or 'json'");
+        }
+    }
+
+    @Bean
+    public ReactiveIdAllocator reactiveIdAllocator(DatabaseClient databaseClient) {
+        return new ReactiveIdAllocator(databaseClient, idStrategy, idBlockSize);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> productRoutes(ProductHandler handler) {
+        RequestPredicate acceptsNdjson = RequestPredicates.headers(headers -> headers.accept()
+                .stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype));
+        return RouterFunctions.route()
+                .path("/products", builder -> builder
+                        .GET("", RequestPredicates.queryParam("ids", ids -> true), handler::getByIds)
+                        .GET("/", acceptsNdjson, handler::export)
+                        .GET("/", handler::getAll)
+                        .POST("/bulk", handler::createAll)
+                        .PUT("/bulk", handler::updateAll)
+                        .DELETE("/bulk", handler::deleteAll)
+                        .GET("/{productId}", handler::getById)
+                        .POST("", handler::create)
+                        .PUT("/{productId}", handler::update)
+                        .DELETE("/{productId}", handler::delete))
+                .build();
+    }
+}
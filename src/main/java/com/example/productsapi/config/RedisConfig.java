@@ -1,12 +1,29 @@
 package com.example.productsapi.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
+import redis.clients.jedis.JedisPoolConfig;
+import java.time.Duration;
 
 @Configuration
 @EnableRedisRepositories
@@ -18,18 +35,85 @@ public class RedisConfig {
     @Value("${spring.redis.port}")
     private Integer redisPort;
 
+    @Value("${spring.redis.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${spring.redis.timeout:1s}")
+    private Duration timeout;
+
+    @Value("${spring.redis.jedis.pool.max-active:16}")
+    private int poolMaxActive;
+
+    @Value("${spring.redis.jedis.pool.max-idle:16}")
+    private int poolMaxIdle;
+
+    @Value("${spring.redis.jedis.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    @Value("${spring.redis.jedis.pool.max-wait:500ms}")
+    private Duration poolMaxWait;
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "spring.redis.client-type", havingValue = "lettuce")
+    public ClientResources lettuceClientResources(MeterRegistry registry) {
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(registry, MicrometerOptions.create()))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.redis.client-type", havingValue = "lettuce")
+    public LettuceConnectionFactory lettuceConnectionFactory(ClientResources clientResources) {
+        var clientOptions = ClientOptions.builder()
+                .protocolVersion(ProtocolVersion.RESP2)
+                .socketOptions(SocketOptions.builder().connectTimeout(connectTimeout).build())
+                .build();
+        var clientConfiguration = LettuceClientConfiguration.builder()
+                .clientResources(clientResources)
+                .clientOptions(clientOptions)
+                .commandTimeout(timeout)
+                .build();
+        var connectionFactory = new LettuceConnectionFactory(standaloneConfiguration(), clientConfiguration);
+        connectionFactory.setShareNativeConnection(true);
+        return connectionFactory;
+    }
+
     @Bean
+    @ConditionalOnMissingBean(RedisConnectionFactory.class)
     public JedisConnectionFactory jedisConnectionFactory() {
-        var configuration = new RedisStandaloneConfiguration();
-        configuration.setHostName(redisHostName);
-        configuration.setPort(redisPort);
-        return new JedisConnectionFactory(configuration);
+        var poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+        poolConfig.setMaxWait(poolMaxWait);
+        poolConfig.setJmxEnabled(true);
+        poolConfig.setJmxNamePrefix("redis");
+        var clientConfiguration = JedisClientConfiguration.builder()
+                .connectTimeout(connectTimeout)
+                .readTimeout(timeout)
+                .usePooling()
+                .poolConfig(poolConfig)
+                .build();
+        return new JedisConnectionFactory(standaloneConfiguration(), clientConfiguration);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.redis.client-type", havingValue = "jedis", matchIfMissing = true)
+    public CommonsObjectPool2Metrics redisPoolMetrics() {
+        return new CommonsObjectPool2Metrics();
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate() {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         var redisTemplate = new RedisTemplate<String, Object>();
-        redisTemplate.setConnectionFactory(jedisConnectionFactory());
+        redisTemplate.setConnectionFactory(connectionFactory);
         return redisTemplate;
     }
+
+    private RedisStandaloneConfiguration standaloneConfiguration() {
+        var configuration = new RedisStandaloneConfiguration();
+        configuration.setHostName(redisHostName);
+        configuration.setPort(redisPort);
+        return configuration;
+    }
 }
@@ -0,0 +1,42 @@
+package com.example.productsapi.controllers;
+
+import com.example.productsapi.dtos.WarmUpProgressDto;
+import com.example.productsapi.services.CacheWarmer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@Endpoint(id = "cachewarmup")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CacheWarmUpEndpoint {
+
+    private final CacheWarmer warmer;
+
+    @Autowired
+    public CacheWarmUpEndpoint(CacheWarmer warmer) {
+        this.warmer = warmer;
+    }
+
+    @ReadOperation
+    public WarmUpProgressDto progress() {
+        return warmer.progress();
+    }
+
+    @WriteOperation
+    public WarmUpProgressDto warmUp(@Nullable Integer limit, @Nullable String hotIds) {
+        var ids = hotIds == null || hotIds.isBlank() ? List.<Long>of() : Arrays.stream(hotIds.split(","))
+                .map(String::trim)
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        warmer.warmUpAsync(limit == null ? 0 : limit, ids);
+        return warmer.progress();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.productsapi.controllers;
+
+import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.snapshot.ProductSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+@RequestMapping("products")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "products.snapshot.enabled", havingValue = "true")
+public class ProductSnapshotController {
+    static final String WATERMARK_HEADER = "X-Snapshot-Watermark";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ProductSnapshotService snapshots;
+
+    @Autowired
+    public ProductSnapshotController(ProductSnapshotService snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @GetMapping("snapshot")
+    public void download(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var snapshot = snapshots.latest()
+                .orElseThrow(() -> new RecordNotFoundException("No product snapshot has been written yet"));
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + snapshot.getCreatedAt().toEpochMilli() + "\""))
+            return;
+
+        try (var channel = FileChannel.open(snapshot.getPath(), StandardOpenOption.READ)) {
+            var size = channel.size();
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(size);
+            response.setHeader(WATERMARK_HEADER, snapshot.getWatermark().toString());
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, snapshot.getPath().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+            var out = Channels.newChannel(response.getOutputStream());
+            for (long position = 0; position < size; )
+                position += channel.transferTo(position, size - position, out);
+        }
+    }
+}
@@ -1,29 +1,81 @@
 package com.example.productsapi.controllers;
 
+import com.example.productsapi.cache.ProductJson;
 import com.example.productsapi.dtos.CreateProductDto;
 import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.ProductStatisticsDto;
 import com.example.productsapi.dtos.UpdateProductDto;
 import com.example.productsapi.services.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
 
 @RequestMapping("products")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductsController {
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    // Same cap as a page, so one request cannot turn into an unbounded multi-get and IN list
+    private static final int MAX_IDS = 1000;
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     private final ProductService service;
+    private final ObjectMapper mapper;
 
     @Autowired
-    public ProductsController(ProductService service) {
+    public ProductsController(ProductService service, ObjectMapper mapper) {
         this.service = service;
+        this.mapper = mapper;
     }
 
     @GetMapping("{productId}")
-    public ResponseEntity<ProductDto> getById(@PathVariable long productId) {
+    public ResponseEntity<?> getById(@PathVariable long productId,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        var representation = representation(accept);
+        if (MediaType.APPLICATION_JSON.equals(representation)) {
+            return service.<ResponseEntity<?>>getById(productId, ProductsController::withETag, p -> withETag(p, representation))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
         var opt = service.getById(productId);
-        return opt.isEmpty()? new ResponseEntity<>(HttpStatus.NOT_FOUND) : ResponseEntity.ok(opt.get());
+        return opt.isEmpty()? new ResponseEntity<>(HttpStatus.NOT_FOUND) : withETag(opt.get(), representation);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductDto>> getByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_IDS)
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        final var result = service.getByIds(ids);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("search")
+    public ResponseEntity<List<ProductDto>> search(@RequestParam(required = false) String namePrefix,
+                                                   @RequestParam(required = false) Double minPrice,
+                                                   @RequestParam(required = false) Double maxPrice,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        final var result = service.search(namePrefix, minPrice, maxPrice, limit);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("statistics")
+    public ResponseEntity<ProductStatisticsDto> getStatistics() {
+        final var result = service.getStatistics();
+        return ResponseEntity.ok(result);
     }
 
     @PostMapping
@@ -33,11 +85,41 @@ public class ProductsController {
     }
 
     @PutMapping("{productId}")
-    public ResponseEntity<ProductDto> update(@PathVariable long productId, @RequestBody UpdateProductDto dto) {
-        if (productId != dto.getId())
+    public ResponseEntity<ProductDto> update(@PathVariable long productId,
+                                             @RequestBody UpdateProductDto dto,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (productId != dto.getId() || dto.getName() == null || dto.getPrice() == null)
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            var version = parseVersion(ifMatch);
+            if (version == null)
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            dto.setVersion(version);
+        }
         final var result = service.update(dto);
-        return ResponseEntity.ok(result);
+        return withETag(result, representation(accept));
+    }
+
+    @PatchMapping("{productId}")
+    public ResponseEntity<?> patch(@PathVariable long productId,
+                                   @RequestBody UpdateProductDto dto,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if ((dto.getId() != 0 && productId != dto.getId()) || (dto.getName() == null && dto.getPrice() == null))
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        dto.setId(productId);
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            var version = parseVersion(ifMatch);
+            if (version == null)
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            dto.setVersion(version);
+        }
+        final var version = service.patch(dto);
+        var response = ResponseEntity.noContent().varyBy(HttpHeaders.ACCEPT);
+        if (version != null)
+            response.eTag(eTag(version.toString(), representation(accept)));
+        return response.build();
     }
 
 
@@ -47,11 +129,132 @@ public class ProductsController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
-    @GetMapping("/")
-    private ResponseEntity<List<ProductDto>> getAll() {
-        final var result = service.getAll();
+    @PostMapping("bulk")
+    public ResponseEntity<List<ProductDto>> createAll(@RequestBody List<CreateProductDto> dtos) {
+        final var result = service.createAll(dtos);
         return ResponseEntity.ok(result);
     }
 
+    @PutMapping("bulk")
+    public ResponseEntity<List<ProductDto>> updateAll(@RequestBody List<UpdateProductDto> dtos) {
+        final var result = service.updateAll(dtos);
+        return ResponseEntity.ok(result);
+    }
 
+    @DeleteMapping("bulk")
+    public ResponseEntity<?> deleteAll(@RequestBody List<Long> productIds) {
+        service.deleteAll(productIds);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @GetMapping("/")
+    private ResponseEntity<ProductPageDto> getAll(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") int limit,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        final var result = service.getPage(cursor, limit);
+        var etag = pageETag(result);
+        var response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (etag != null)
+            response.eTag(eTag(etag, representation(accept)));
+        return response.body(result);
+    }
+
+    @GetMapping(value = "/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = output -> {
+            try (var generator = mapper.createGenerator(output)) {
+                generator.setRootValueSeparator(null);
+                var written = new int[1];
+                service.exportAll(product -> {
+                    try {
+                        generator.writeObject(product);
+                        generator.writeRaw('\n');
+                        // The first record goes out at once so the client sees the response start, then in batches
+                        if (++written[0] % EXPORT_FLUSH_SIZE == 1)
+                            generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // The body is written in the negotiated representation, so the content type is fixed to the one the ETag names
+    private static ResponseEntity<ProductDto> withETag(ProductDto product, MediaType representation) {
+        var response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (representation != null)
+            response.contentType(representation);
+        if (product.getVersion() != null)
+            response.eTag(eTag(product.getVersion().toString(), representation));
+        return response.body(product);
+    }
+
+    private static ResponseEntity<byte[]> withETag(ProductJson product) {
+        var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT);
+        if (product.getVersion() != null)
+            response.eTag(eTag(product.getVersion().toString(), MediaType.APPLICATION_JSON));
+        return response.body(product.getJson());
+    }
+
+    // A strong ETag names one representation: JSON keeps the bare version, CBOR and Smile get a suffix
+    private static String eTag(String value, MediaType representation) {
+        if (CBOR.equals(representation))
+            return value + "-cbor";
+        if (SMILE.equals(representation))
+            return value + "-smile";
+        return value;
+    }
+
+    // The representation content negotiation will pick, in converter order (JSON first), or null when none fits.
+    // The cached bytes are JSON, so they may only short-circuit negotiation when JSON is what the caller wants most.
+    private static MediaType representation(String accept) {
+        if (accept == null || accept.isBlank())
+            return MediaType.APPLICATION_JSON;
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (types.isEmpty())
+            return MediaType.APPLICATION_JSON;
+        MediaType.sortBySpecificityAndQuality(types);
+        for (var type : types) {
+            if (type.getQualityValue() == 0)
+                continue;
+            for (var representation : List.of(MediaType.APPLICATION_JSON, CBOR, SMILE))
+                if (type.isCompatibleWith(representation))
+                    return representation;
+        }
+        return null;
+    }
+
+    private static String pageETag(ProductPageDto page) {
+        var fingerprint = new StringBuilder();
+        for (var product : page.getItems()) {
+            if (product.getVersion() == null)
+                return null;
+            fingerprint.append(product.getId()).append(':').append(product.getVersion()).append(',');
+        }
+        fingerprint.append(Objects.toString(page.getNextCursor(), ""));
+        return DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long parseVersion(String ifMatch) {
+        var etag = ifMatch.trim();
+        if (etag.startsWith("W/") || etag.contains(","))
+            return null;
+        var value = etag.replace("\"", "");
+        if (value.endsWith("-cbor") || value.endsWith("-smile"))
+            value = value.substring(0, value.lastIndexOf('-'));
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package com.example.productsapi.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PIN_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PRIMARY";
+
+    private final Map<String, DataSource> pools = new LinkedHashMap<>();
+    private final List<String> replicas = new ArrayList<>();
+    private final Map<String, AtomicLong> lagSeconds = new HashMap<>();
+    private final Map<String, Counter> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final ScheduledExecutorService lagChecks;
+    private volatile List<String> healthy;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<DataSource> replicaPools,
+                                    String lagQuery,
+                                    Duration maxLag,
+                                    Duration checkInterval) {
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        pools.put(PRIMARY, primary);
+        for (int i = 0; i < replicaPools.size(); i++) {
+            var key = "replica-" + (i + 1);
+            pools.put(key, replicaPools.get(i));
+            replicas.add(key);
+            lagSeconds.put(key, new AtomicLong());
+        }
+        this.healthy = List.copyOf(replicas);
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(primary);
+
+        if (lagQuery.isBlank() || replicas.isEmpty()) {
+            this.lagChecks = null;
+        } else {
+            this.lagChecks = Executors.newSingleThreadScheduledExecutor(r -> {
+                var thread = new Thread(r, "replica-lag-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            lagChecks.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        pools.forEach((key, pool) -> {
+            routes.put(key, Counter.builder("products.datasource.routes")
+                    .tag("pool", key)
+                    .register(registry));
+            if (pool instanceof HikariDataSource && ((HikariDataSource) pool).getMetricsTrackerFactory() == null)
+                ((HikariDataSource) pool).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        });
+        lagSeconds.forEach((key, lag) -> Gauge.builder("products.datasource.replica.lag", lag, AtomicLong::get)
+                .baseUnit("seconds")
+                .tag("pool", key)
+                .register(registry));
+    }
+
+    public static void usePrimaryForCurrentRequest() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+            attributes.setAttribute(PIN_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        var key = route();
+        var counter = routes.get(key);
+        if (counter != null)
+            counter.increment();
+        return key;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinnedToPrimary())
+            return PRIMARY;
+        var candidates = healthy;
+        if (candidates.isEmpty())
+            return PRIMARY;
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    private static boolean isPinnedToPrimary() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PIN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    void checkLag() {
+        var current = new ArrayList<String>(replicas.size());
+        var lags = new HashMap<String, Long>();
+        for (var key : replicas) {
+            try (var connection = pools.get(key).getConnection();
+                 var statement = connection.createStatement();
+                 var result = statement.executeQuery(lagQuery)) {
+                // No row or a NULL lag (e.g. Seconds_Behind_Source while replication is stopped) means not replicating
+                if (!result.next()) {
+                    log.warn("Replica {} lag query returned no row, routing its reads to other pools", key);
+                    continue;
+                }
+                var lag = result.getLong(1);
+                if (result.wasNull()) {
+                    log.warn("Replica {} lag is unknown, routing its reads to other pools", key);
+                    continue;
+                }
+                lags.put(key, lag);
+                if (lag <= maxLag.toSeconds())
+                    current.add(key);
+            } catch (Exception e) {
+                log.warn("Replica {} lag check failed, routing its reads to other pools", key, e);
+            }
+        }
+        healthy = List.copyOf(current);
+        lags.forEach((key, lag) -> lagSeconds.get(key).set(lag));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (lagChecks != null)
+            lagChecks.shutdownNow();
+        for (var pool : pools.values())
+            if (pool instanceof Closeable)
+                ((Closeable) pool).close();
+    }
+}
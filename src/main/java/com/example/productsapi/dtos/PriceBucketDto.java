@@ -0,0 +1,14 @@
+package com.example.productsapi.dtos;
+
+import lombok.*;
+
+@EqualsAndHashCode
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucketDto {
+    private Double from;
+    private Double to;
+    private long count;
+}
@@ -0,0 +1,17 @@
+package com.example.productsapi.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceSummaryDto {
+    private Long count;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double sum;
+}
@@ -1,5 +1,6 @@
 package com.example.productsapi.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @EqualsAndHashCode
@@ -11,4 +12,10 @@ public class ProductDto {
     private long id;
     private String name;
     private Double price;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    public ProductDto(long id, String name, Double price) {
+        this(id, name, price, null);
+    }
 }
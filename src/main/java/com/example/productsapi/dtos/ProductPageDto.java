@@ -0,0 +1,14 @@
+package com.example.productsapi.dtos;
+
+import lombok.*;
+import java.util.List;
+
+@EqualsAndHashCode
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDto {
+    private List<ProductDto> items;
+    private String nextCursor;
+}
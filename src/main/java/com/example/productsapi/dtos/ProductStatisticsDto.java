@@ -0,0 +1,17 @@
+package com.example.productsapi.dtos;
+
+import lombok.*;
+import java.util.List;
+
+@EqualsAndHashCode
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStatisticsDto {
+    private long count;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double averagePrice;
+    private List<PriceBucketDto> histogram;
+}
@@ -13,4 +13,9 @@ public class UpdateProductDto {
     private long id;
     private String name;
     private Double price;
+    private Long version;
+
+    public UpdateProductDto(long id, String name, Double price) {
+        this(id, name, price, null);
+    }
 }
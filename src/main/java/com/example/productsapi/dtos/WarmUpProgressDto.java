@@ -0,0 +1,16 @@
+package com.example.productsapi.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class WarmUpProgressDto {
+    private boolean running;
+    private long loaded;
+    private long total;
+}
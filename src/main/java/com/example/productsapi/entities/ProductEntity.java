@@ -3,21 +3,50 @@ package com.example.productsapi.entities;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @AllArgsConstructor
 @Setter
 @Getter
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name", columnList = "name"),
+        @Index(name = "idx_products_price", columnList = "price"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at")})
 public class ProductEntity {
     public ProductEntity(){}
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "products_seq")
+    @GenericGenerator(
+            name = "products_seq",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private long id;
     @Column(name = "name", nullable = false, length = 50)
     private String name;
     @Column(name = "price", nullable = false)
     private Double price;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public ProductEntity(long id, String name, Double price) {
+        this(id, name, price, null);
+    }
+
+    public ProductEntity(long id, String name, Double price, Long version) {
+        this(id, name, price, version, null);
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.productsapi.events;
+
+import lombok.Getter;
+import java.util.List;
+
+@Getter
+public class ProductChangedEvent {
+
+    public enum Type { SAVED, DELETED }
+
+    private final Type type;
+    private final List<Long> productIds;
+    private final boolean remote;
+
+    public ProductChangedEvent(Type type, List<Long> productIds, boolean remote) {
+        this.type = type;
+        this.productIds = List.copyOf(productIds);
+        this.remote = remote;
+    }
+
+    public static ProductChangedEvent saved(long productId) {
+        return new ProductChangedEvent(Type.SAVED, List.of(productId), false);
+    }
+
+    public static ProductChangedEvent deleted(long productId) {
+        return new ProductChangedEvent(Type.DELETED, List.of(productId), false);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.productsapi.events;
+
+public class ProductChangesSubscribedEvent {
+}
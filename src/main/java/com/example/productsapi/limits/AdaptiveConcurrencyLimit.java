@@ -0,0 +1,107 @@
+package com.example.productsapi.limits;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdaptiveConcurrencyLimit implements MeterBinder {
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LONG_RTT_SMOOTHING = 2.0 / 601;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile double limit;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(String name,
+                                    int initialLimit,
+                                    int minLimit,
+                                    int maxLimit,
+                                    double tolerance,
+                                    double smoothing) {
+        if (minLimit < 1 || minLimit > maxLimit)
+            throw new IllegalArgumentException("Invalid " + name + " concurrency limit bounds: " + minLimit + ".." + maxLimit);
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), inFlightBefore, dropped);
+    }
+
+    private synchronized void update(long rtt, int inFlightBefore, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) * LONG_RTT_SMOOTHING;
+        if (longRtt > 2 * rtt)
+            longRtt *= 0.95;
+        if (inFlightBefore < limit / 2)
+            return;
+        var gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / rtt));
+        var newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("products.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+                .tag("type", name)
+                .register(registry);
+        Gauge.builder("products.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .tag("type", name)
+                .register(registry);
+        FunctionCounter.builder("products.concurrency.rejections", rejections, LongAdder::sum)
+                .tag("type", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.productsapi.limits;
+
+import com.example.productsapi.exceptions.ServiceOverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final String retryAfter;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimit reads,
+                                       AdaptiveConcurrencyLimit writes,
+                                       Duration retryAfter) {
+        this.reads = reads;
+        this.writes = writes;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST)
+            return true;
+        var limit = isRead(request) ? reads : writes;
+        if (!limit.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            throw new ServiceOverloadedException("Too many concurrent " + limit.getName() + " requests");
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, limit);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        var limit = takePermit(request);
+        if (limit != null)
+            limit.release();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        var limit = takePermit(request);
+        if (limit == null)
+            return;
+        var start = (Long) request.getAttribute(START_ATTRIBUTE);
+        limit.release(System.nanoTime() - start, ex != null || response.getStatus() >= 500);
+    }
+
+    private static AdaptiveConcurrencyLimit takePermit(HttpServletRequest request) {
+        var limit = (AdaptiveConcurrencyLimit) request.getAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        return limit;
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        var method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.productsapi.reactive;
+
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ProductHandler {
+
+    private static final ParameterizedTypeReference<List<CreateProductDto>> CREATE_LIST = new ParameterizedTypeReference<>() { };
+    private static final ParameterizedTypeReference<List<UpdateProductDto>> UPDATE_LIST = new ParameterizedTypeReference<>() { };
+    private static final ParameterizedTypeReference<List<Long>> ID_LIST = new ParameterizedTypeReference<>() { };
+    private static final int MAX_IDS = 1000;
+
+    private final ReactiveProductService service;
+
+    @Autowired
+    public ProductHandler(ReactiveProductService service) {
+        this.service = service;
+    }
+
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        return service.getById(productId(request))
+                .flatMap(product -> product.getVersion() == null
+                        ? ServerResponse.ok().bodyValue(product)
+                        : request.checkNotModified(product.getVersion().toString())
+                                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(product.getVersion().toString()).bodyValue(product))))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> getByIds(ServerRequest request) {
+        List<Long> ids;
+        try {
+            ids = request.queryParams()
+                    .getOrDefault("ids", List.of())
+                    .stream()
+                    .flatMap(value -> Arrays.stream(value.split(",")))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        if (ids.size() > MAX_IDS)
+            return ServerResponse.badRequest().build();
+        return ServerResponse.ok().body(service.getByIds(ids), ProductDto.class);
+    }
+
+    public Mono<ServerResponse> getAll(ServerRequest request) {
+        var cursor = request.queryParam("cursor").orElse(null);
+        var limit = request.queryParam("limit").map(Integer::valueOf).orElse(100);
+        return service.getPage(cursor, limit)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> export(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(service.exportAll(), ProductDto.class);
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return request.bodyToMono(CreateProductDto.class)
+                .flatMap(service::create)
+                .flatMap(product -> ServerResponse.ok().bodyValue(product));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        var productId = productId(request);
+        return request.bodyToMono(UpdateProductDto.class)
+                .flatMap(dto -> productId != dto.getId()
+                        ? ServerResponse.badRequest().build()
+                        : service.update(dto).flatMap(product -> ServerResponse.ok().bodyValue(product)));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return service.delete(productId(request))
+                .then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> createAll(ServerRequest request) {
+        return request.bodyToMono(CREATE_LIST)
+                .flatMap(dtos -> ServerResponse.ok().body(service.createAll(dtos), ProductDto.class));
+    }
+
+    public Mono<ServerResponse> updateAll(ServerRequest request) {
+        return request.bodyToMono(UPDATE_LIST)
+                .flatMap(dtos -> ServerResponse.ok().body(service.updateAll(dtos), ProductDto.class));
+    }
+
+    public Mono<ServerResponse> deleteAll(ServerRequest request) {
+        return request.bodyToMono(ID_LIST)
+                .flatMap(service::deleteAll)
+                .then(ServerResponse.ok().build());
+    }
+
+    private static long productId(ServerRequest request) {
+        return Long.parseLong(request.pathVariable("productId"));
+    }
+}
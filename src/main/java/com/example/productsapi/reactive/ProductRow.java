@@ -0,0 +1,30 @@
+package com.example.productsapi.reactive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Table("products")
+public class ProductRow implements Persistable<Long> {
+    @Id
+    private Long id;
+    private String name;
+    private Double price;
+    @Version
+    private Long version;
+    private Instant updatedAt;
+    @Transient
+    private boolean newRow;
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.productsapi.reactive;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+public class ReactiveIdAllocator {
+
+    public enum Strategy { TABLE, SEQUENCE }
+
+    private final DatabaseClient client;
+    private final Strategy strategy;
+    private final int blockSize;
+    private long next;
+    private long limit;
+
+    public ReactiveIdAllocator(DatabaseClient client, Strategy strategy, int blockSize) {
+        this.client = client;
+        this.strategy = strategy;
+        this.blockSize = blockSize;
+    }
+
+    public Mono<Long> nextId() {
+        synchronized (this) {
+            if (next < limit)
+                return Mono.just(next++);
+        }
+        return reserveBlock().map(low -> {
+            synchronized (this) {
+                next = low + 1;
+                limit = low + blockSize;
+            }
+            return low;
+        });
+    }
+
+    private Mono<Long> reserveBlock() {
+        if (strategy == Strategy.SEQUENCE)
+            return client.sql("SELECT NEXT VALUE FOR hibernate_sequence")
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+
+        return client.sql("SELECT next_val FROM hibernate_sequence")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(current -> client.sql("UPDATE hibernate_sequence SET next_val = :next WHERE next_val = :current")
+                        .bind("next", current + blockSize)
+                        .bind("current", current)
+                        .fetch()
+                        .rowsUpdated()
+                        .filter(updated -> updated == 1)
+                        .map(updated -> current))
+                .repeatWhenEmpty(100, attempts -> attempts);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.productsapi.reactive;
+
+import com.example.productsapi.cache.CacheTierMetrics;
+import com.example.productsapi.cache.ProductCacheCodec;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.cache.ProductCacheScripts;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class ReactiveProductCache {
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final String keyPrefix;
+    private final Duration timeToLive;
+    private final CacheTierMetrics metrics;
+    private final Function<ProductCacheEntity, byte[]> encoder;
+    private final Function<byte[], Optional<ProductCacheEntity>> decoder;
+
+    public ReactiveProductCache(ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                                String keyPrefix,
+                                Duration timeToLive,
+                                MeterRegistry registry) {
+        this(redisTemplate, keyPrefix, timeToLive, ProductCacheCodec::encode, ProductCacheCodec::decode, registry);
+    }
+
+    // The value format must match products.cache.format of the servlet nodes sharing the keys
+    public ReactiveProductCache(ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                                String keyPrefix,
+                                Duration timeToLive,
+                                Function<ProductCacheEntity, byte[]> encoder,
+                                Function<byte[], Optional<ProductCacheEntity>> decoder,
+                                MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.timeToLive = timeToLive;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.metrics = new CacheTierMetrics(registry, "l2");
+    }
+
+    public Mono<ProductCacheEntity> get(long productId) {
+        return redisTemplate.opsForValue()
+                .get(key(productId))
+                .map(decoder)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(result -> metrics.record(result.isPresent()))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public Mono<Map<Long, ProductCacheEntity>> getAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return Mono.just(Map.of());
+        var ids = List.copyOf(productIds);
+        var keys = ids.stream().map(this::key).collect(Collectors.toList());
+        return redisTemplate.opsForValue()
+                .multiGet(keys)
+                .map(values -> {
+                    var result = new HashMap<Long, ProductCacheEntity>(ids.size());
+                    for (int i = 0; i < ids.size(); i++) {
+                        var product = decoder.apply(values.get(i));
+                        metrics.record(product.isPresent());
+                        product.ifPresent(p -> result.put(p.getId(), p));
+                    }
+                    return result;
+                });
+    }
+
+    public Mono<Void> put(ProductCacheEntity product) {
+        var args = List.of(
+                ProductCacheScripts.bytes(String.valueOf(timeToLive.toMillis())),
+                ProductCacheScripts.version(product),
+                encoder.apply(product));
+        return redisTemplate.execute(ProductCacheScripts.PUT_IF_NEWER, List.of(key(product.getId())), args)
+                .then();
+    }
+
+    public Mono<Void> putAll(Collection<ProductCacheEntity> products) {
+        return Flux.fromIterable(products)
+                .flatMap(this::put)
+                .then();
+    }
+
+    public Mono<Void> evict(long productId) {
+        return redisTemplate.delete(key(productId)).then();
+    }
+
+    public Mono<Void> evictAll(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return Mono.empty();
+        return redisTemplate.delete(productIds.stream().map(this::key).toArray(String[]::new)).then();
+    }
+
+    private String key(long productId) {
+        return keyPrefix + productId;
+    }
+}
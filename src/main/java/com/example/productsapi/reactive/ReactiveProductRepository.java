@@ -0,0 +1,21 @@
+package com.example.productsapi.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+
+@Repository
+public interface ReactiveProductRepository extends ReactiveCrudRepository<ProductRow, Long> {
+    Flux<ProductRow> findByIdGreaterThanOrderByIdAsc(long productId, Pageable pageable);
+
+    Flux<ProductRow> findAllByOrderByIdAsc();
+
+    @Modifying
+    @Query("DELETE FROM products WHERE id IN (:productIds)")
+    Mono<Integer> deleteByIdIn(Collection<Long> productIds);
+}
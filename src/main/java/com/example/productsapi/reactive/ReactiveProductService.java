@@ -0,0 +1,23 @@
+package com.example.productsapi.reactive;
+
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReactiveProductService {
+    Mono<ProductDto> create(CreateProductDto dto);
+    Mono<ProductDto> update(UpdateProductDto dto);
+    Mono<Void> delete(long productId);
+    Flux<ProductDto> createAll(List<CreateProductDto> dtos);
+    Flux<ProductDto> updateAll(List<UpdateProductDto> dtos);
+    Mono<Void> deleteAll(Collection<Long> productIds);
+    Mono<ProductDto> getById(long productId);
+    Flux<ProductDto> getByIds(List<Long> productIds);
+    Mono<ProductPageDto> getPage(String cursor, int limit);
+    Flux<ProductDto> exportAll();
+}
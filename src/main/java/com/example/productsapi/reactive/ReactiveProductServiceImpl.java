@@ -0,0 +1,245 @@
+package com.example.productsapi.reactive;
+
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.cache.ProductChangeRelay;
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import com.example.productsapi.events.ProductChangedEvent;
+import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.exceptions.VersionConflictException;
+import com.example.productsapi.services.ProductCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int BULK_CHUNK_SIZE = 1000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReactiveProductRepository repository;
+    private final ReactiveProductCache cache;
+    private final ReactiveIdAllocator ids;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final TransactionalOperator transactions;
+    private final String changesChannel;
+
+    @Autowired
+    public ReactiveProductServiceImpl(ReactiveProductRepository repository,
+                                      ReactiveProductCache cache,
+                                      ReactiveIdAllocator ids,
+                                      ReactiveStringRedisTemplate redisTemplate,
+                                      TransactionalOperator transactions,
+                                      @Value("${products.cache.changes-channel:products:changes}") String changesChannel) {
+        this.repository = repository;
+        this.cache = cache;
+        this.ids = ids;
+        this.redisTemplate = redisTemplate;
+        this.transactions = transactions;
+        this.changesChannel = changesChannel;
+    }
+
+    @Override
+    public Mono<ProductDto> create(CreateProductDto dto) {
+        return ids.nextId()
+                .flatMap(id -> repository.save(newRow(id, dto)))
+                .flatMap(row -> cache.put(toCacheEntity(row))
+                        .then(publish(ProductChangedEvent.saved(row.getId())))
+                        .thenReturn(toDto(row)));
+    }
+
+    @Override
+    public Mono<ProductDto> update(UpdateProductDto dto) {
+        return repository.findById(dto.getId())
+                .switchIfEmpty(Mono.error(() -> notFound(dto.getId())))
+                .flatMap(row -> {
+                    if (dto.getVersion() != null && !dto.getVersion().equals(row.getVersion()))
+                        return Mono.error(versionConflict(dto.getId()));
+                    row.setName(dto.getName());
+                    row.setPrice(dto.getPrice());
+                    row.setUpdatedAt(Instant.now());
+                    return repository.save(row);
+                })
+                .onErrorMap(OptimisticLockingFailureException.class, e -> versionConflict(dto.getId()))
+                .flatMap(row -> cache.put(toCacheEntity(row))
+                        .then(publish(ProductChangedEvent.saved(row.getId())))
+                        .thenReturn(toDto(row)));
+    }
+
+    @Override
+    public Mono<Void> delete(long productId) {
+        return repository.existsById(productId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> notFound(productId)))
+                .then(cache.evict(productId))
+                .then(repository.deleteById(productId))
+                .then(publish(ProductChangedEvent.deleted(productId)));
+    }
+
+    @Override
+    public Flux<ProductDto> createAll(List<CreateProductDto> dtos) {
+        return Flux.fromIterable(dtos)
+                .concatMap(dto -> ids.nextId().map(id -> newRow(id, dto)))
+                .collectList()
+                .flatMapMany(repository::saveAll)
+                .as(transactions::transactional)
+                .collectList()
+                .flatMapMany(this::afterBulkSave);
+    }
+
+    @Override
+    public Flux<ProductDto> updateAll(List<UpdateProductDto> dtos) {
+        var requested = dtos.stream()
+                .collect(Collectors.toMap(UpdateProductDto::getId, Function.identity(), (a, b) -> b));
+        return repository.findAllById(requested.keySet())
+                .collectList()
+                .flatMapMany(rows -> {
+                    if (rows.size() != requested.size()) {
+                        var found = rows.stream().map(ProductRow::getId).collect(Collectors.toSet());
+                        var missing = requested.keySet().stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+                        return Flux.error(notFound(missing));
+                    }
+                    for (var row : rows) {
+                        var dto = requested.get(row.getId());
+                        if (dto.getVersion() != null && !dto.getVersion().equals(row.getVersion()))
+                            return Flux.error(versionConflict(row.getId()));
+                        row.setName(dto.getName());
+                        row.setPrice(dto.getPrice());
+                        row.setUpdatedAt(Instant.now());
+                    }
+                    return repository.saveAll(rows);
+                })
+                .as(transactions::transactional)
+                .collectList()
+                .flatMapMany(this::afterBulkSave);
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Collection<Long> productIds) {
+        var ids = List.copyOf(new LinkedHashSet<>(productIds));
+        return Flux.fromIterable(ids)
+                .buffer(BULK_CHUNK_SIZE)
+                .concatMap(repository::deleteByIdIn)
+                .reduce(0, Integer::sum)
+                .flatMap(deleted -> deleted == ids.size()
+                        ? Mono.<Void>empty()
+                        : Mono.error(new RecordNotFoundException((ids.size() - deleted) + " of the requested products were not found")))
+                .as(transactions::transactional)
+                .then(cache.evictAll(ids))
+                .then(publish(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, ids, false)));
+    }
+
+    @Override
+    public Mono<ProductDto> getById(long productId) {
+        return cache.get(productId)
+                .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()))
+                .switchIfEmpty(Mono.defer(() -> repository.findById(productId)
+                        .flatMap(row -> cache.put(toCacheEntity(row)).thenReturn(toDto(row)))));
+    }
+
+    @Override
+    public Flux<ProductDto> getByIds(List<Long> productIds) {
+        var ids = new LinkedHashSet<>(productIds);
+        return cache.getAll(ids)
+                .flatMap(cached -> {
+                    var found = new HashMap<Long, ProductDto>(ids.size());
+                    cached.values().forEach(p -> found.put(p.getId(), new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion())));
+                    var misses = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+                    if (misses.isEmpty())
+                        return Mono.just(found);
+                    return repository.findAllById(misses)
+                            .collectList()
+                            .flatMap(rows -> {
+                                rows.forEach(row -> found.put(row.getId(), toDto(row)));
+                                return cache.putAll(rows.stream().map(ReactiveProductServiceImpl::toCacheEntity).collect(Collectors.toList()))
+                                        .thenReturn(found);
+                            });
+                })
+                .flatMapMany(found -> Flux.fromStream(ids.stream().map(found::get).filter(Objects::nonNull)));
+    }
+
+    @Override
+    public Mono<ProductPageDto> getPage(String cursor, int limit) {
+        return Mono.fromCallable(() -> cursor == null ? 0L : ProductCursor.decode(cursor))
+                .flatMap(afterId -> {
+                    var pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+                    return repository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1))
+                            .map(ReactiveProductServiceImpl::toDto)
+                            .collectList()
+                            .map(rows -> {
+                                var hasNext = rows.size() > pageSize;
+                                var items = hasNext ? rows.subList(0, pageSize) : rows;
+                                var nextCursor = hasNext ? ProductCursor.encode(items.get(items.size() - 1).getId()) : null;
+                                return new ProductPageDto(items, nextCursor);
+                            });
+                });
+    }
+
+    @Override
+    public Flux<ProductDto> exportAll() {
+        return repository.findAllByOrderByIdAsc().map(ReactiveProductServiceImpl::toDto);
+    }
+
+    private Flux<ProductDto> afterBulkSave(List<ProductRow> saved) {
+        var savedIds = saved.stream().map(ProductRow::getId).collect(Collectors.toList());
+        return cache.putAll(saved.stream().map(ReactiveProductServiceImpl::toCacheEntity).collect(Collectors.toList()))
+                .then(publish(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, savedIds, false)))
+                .thenMany(Flux.fromIterable(saved).map(ReactiveProductServiceImpl::toDto));
+    }
+
+    private Mono<Void> publish(ProductChangedEvent event) {
+        return redisTemplate.convertAndSend(changesChannel, ProductChangeRelay.encode(nodeId, event)).then();
+    }
+
+    private static RecordNotFoundException notFound(long productId) {
+        return new RecordNotFoundException("Product with the Id " + productId + " was not found");
+    }
+
+    private static VersionConflictException versionConflict(long productId) {
+        return new VersionConflictException("Product with the Id " + productId + " was modified concurrently");
+    }
+
+    private static ProductRow newRow(long id, CreateProductDto dto) {
+        var row = new ProductRow();
+        row.setId(id);
+        row.setName(dto.getName());
+        row.setPrice(dto.getPrice());
+        row.setUpdatedAt(Instant.now());
+        row.setNewRow(true);
+        return row;
+    }
+
+    private static ProductDto toDto(ProductRow row) {
+        return new ProductDto(row.getId(), row.getName(), row.getPrice(), row.getVersion());
+    }
+
+    private static ProductCacheEntity toCacheEntity(ProductRow row) {
+        var cacheProduct = new ProductCacheEntity();
+        cacheProduct.setId(row.getId());
+        cacheProduct.setName(row.getName());
+        cacheProduct.setPrice(row.getPrice());
+        cacheProduct.setVersion(row.getVersion());
+        return cacheProduct;
+    }
+}
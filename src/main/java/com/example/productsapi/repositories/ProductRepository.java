@@ -1,8 +1,99 @@
 package com.example.productsapi.repositories;
 
+import com.example.productsapi.dtos.PriceSummaryDto;
+import com.example.productsapi.dtos.ProductDto;
 import com.example.productsapi.entities.ProductEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface ProductRepository  extends JpaRepository<ProductEntity, Long> { }
+public interface ProductRepository  extends JpaRepository<ProductEntity, Long> {
+    List<ProductEntity> findByIdGreaterThanOrderByIdAsc(long productId, Pageable pageable);
+
+    List<ProductEntity> findByIdBetween(long fromId, long toId);
+
+    @Query("select min(p.id) from ProductEntity p")
+    Long findMinId();
+
+    @Query("select max(p.id) from ProductEntity p")
+    Long findMaxId();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")})
+    @Query("select p from ProductEntity p order by p.id")
+    Stream<ProductEntity> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")})
+    @Query("select p.id from ProductEntity p")
+    Stream<Long> streamAllIds();
+
+    @Query("select p from ProductEntity p"
+            + " where (:namePrefix is null or lower(p.name) like concat(:namePrefix, '%') escape '!')"
+            + " and (:minPrice is null or p.price >= :minPrice)"
+            + " and (:maxPrice is null or p.price <= :maxPrice)"
+            + " order by p.price, p.id")
+    List<ProductEntity> search(String namePrefix, Double minPrice, Double maxPrice, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")})
+    @Query("select new com.example.productsapi.dtos.ProductDto(p.id, p.name, p.price, p.version) from ProductEntity p")
+    Stream<ProductDto> streamAllDtos();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")})
+    @Query("select new com.example.productsapi.dtos.ProductDto(p.id, p.name, p.price, p.version) from ProductEntity p"
+            + " where p.updatedAt >= :since")
+    Stream<ProductDto> streamDtosUpdatedSince(Instant since);
+
+    @Query("select new com.example.productsapi.dtos.ProductDto(p.id, p.name, p.price, p.version) from ProductEntity p"
+            + " where p.id = :productId")
+    Optional<ProductDto> findDtoById(long productId);
+
+    @Query("select new com.example.productsapi.dtos.ProductDto(p.id, p.name, p.price, p.version) from ProductEntity p"
+            + " where p.id in :productIds")
+    List<ProductDto> findDtosByIdIn(Collection<Long> productIds);
+
+    @Query("select new com.example.productsapi.dtos.PriceSummaryDto(count(p), min(p.price), max(p.price), sum(p.price))"
+            + " from ProductEntity p")
+    PriceSummaryDto summarizePrices();
+
+    @Transactional
+    @Modifying
+    @Query("update ProductEntity p set p.name = coalesce(:name, p.name), p.price = coalesce(:price, p.price),"
+            + " p.version = p.version + 1,"
+            + " p.updatedAt = current_timestamp"
+            + " where p.id = :productId and (:version is null or p.version = :version)")
+    int update(long productId, String name, Double price, Long version);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductEntity p where p.id = :productId")
+    int deleteByIdReturningCount(long productId);
+
+    @Modifying
+    @Query("delete from ProductEntity p where p.id in :productIds")
+    int deleteByIdIn(Collection<Long> productIds);
+}
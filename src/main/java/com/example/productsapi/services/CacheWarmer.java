@@ -0,0 +1,220 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.dtos.WarmUpProgressDto;
+import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.repositories.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final ProductRepository repository;
+    private final ProductCache cache;
+    private final ApplicationEventPublisher publisher;
+    private final Timer duration;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+
+    @Value("${products.cache.warm-up.on-startup:false}")
+    private boolean onStartup;
+
+    @Value("${products.cache.warm-up.threads:4}")
+    private int threads;
+
+    @Value("${products.cache.warm-up.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${products.cache.warm-up.limit:0}")
+    private int limit;
+
+    @Value("${products.cache.warm-up.hot-ids-location:}")
+    private String hotIdsLocation;
+
+    @Autowired
+    public CacheWarmer(ProductRepository repository,
+                       ProductCache cache,
+                       ApplicationEventPublisher publisher,
+                       MeterRegistry registry) {
+        this.repository = repository;
+        this.cache = cache;
+        this.publisher = publisher;
+        this.duration = Timer.builder("products.cache.warm-up").register(registry);
+        Gauge.builder("products.cache.warm-up.loaded", loaded, AtomicLong::get).register(registry);
+        Gauge.builder("products.cache.warm-up.total", total, AtomicLong::get).register(registry);
+        Gauge.builder("products.cache.warm-up.running", running, r -> r.get() ? 1 : 0).register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!onStartup)
+            return;
+        try {
+            var hotIds = readHotIds();
+            claim();
+            load(limit, hotIds, true);
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up at startup failed, serving from a cold cache", e);
+        }
+    }
+
+    public WarmUpProgressDto progress() {
+        return new WarmUpProgressDto(running.get(), loaded.get(), total.get());
+    }
+
+    public boolean warmUpAsync(int limit, List<Long> hotIds) {
+        if (!running.compareAndSet(false, true))
+            return false;
+        try {
+            var job = new Thread(() -> {
+                try {
+                    load(limit, hotIds, false);
+                } catch (RuntimeException e) {
+                    log.warn("Cache warm-up failed", e);
+                }
+            }, "product-cache-warm-up");
+            job.setDaemon(true);
+            job.start();
+            return true;
+        } catch (RuntimeException | Error e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public WarmUpProgressDto warmUp(int limit, List<Long> hotIds) {
+        claim();
+        return load(limit, hotIds, false);
+    }
+
+    private void claim() {
+        if (!running.compareAndSet(false, true))
+            throw new IllegalStateException("A cache warm-up is already running");
+    }
+
+    // Only the startup warm-up holds traffic back; one requested later fills the cache while the instance keeps
+    // serving. The caller must have claimed running, which is released here
+    private WarmUpProgressDto load(int limit, List<Long> hotIds, boolean refuseTraffic) {
+        if (refuseTraffic)
+            AvailabilityChangeEvent.publish(publisher, this, ReadinessState.REFUSING_TRAFFIC);
+        var sample = Timer.start();
+        loaded.set(0);
+        try {
+            var tasks = hotIds == null || hotIds.isEmpty() ? rangeTasks(limit) : hotTasks(limit, hotIds);
+            var executor = Executors.newFixedThreadPool(threads);
+            try {
+                for (var future : executor.invokeAll(tasks))
+                    future.get();
+            } finally {
+                executor.shutdownNow();
+            }
+            log.info("Cache warm-up loaded {} products", loaded.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cache warm-up was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cache warm-up failed", e.getCause());
+        } finally {
+            sample.stop(duration);
+            running.set(false);
+            if (refuseTraffic)
+                AvailabilityChangeEvent.publish(publisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+        return progress();
+    }
+
+    private List<Callable<Integer>> rangeTasks(int limit) {
+        var tasks = new ArrayList<Callable<Integer>>();
+        var minId = repository.findMinId();
+        var maxId = repository.findMaxId();
+        var count = repository.count();
+        total.set(limit > 0 ? Math.min(limit, count) : count);
+        if (minId == null)
+            return tasks;
+        var reserved = new AtomicInteger();
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            var fromId = from;
+            var toId = Math.min(maxId, from + chunkSize - 1);
+            tasks.add(() -> {
+                if (limit > 0 && reserved.get() >= limit)
+                    return 0;
+                var products = repository.findByIdBetween(fromId, toId);
+                if (limit > 0) {
+                    var allowed = Math.max(0, limit - reserved.getAndAdd(products.size()));
+                    products = products.subList(0, Math.min(allowed, products.size()));
+                }
+                return store(products);
+            });
+        }
+        return tasks;
+    }
+
+    private List<Callable<Integer>> hotTasks(int limit, List<Long> hotIds) {
+        var ids = List.copyOf(new LinkedHashSet<>(hotIds));
+        if (limit > 0 && ids.size() > limit)
+            ids = ids.subList(0, limit);
+        total.set(ids.size());
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            var chunk = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+            tasks.add(() -> store(repository.findAllById(chunk)));
+        }
+        return tasks;
+    }
+
+    private int store(List<ProductEntity> products) {
+        if (products.isEmpty())
+            return 0;
+        cache.putAll(products.stream().map(ProductServiceImpl::toCacheEntity).collect(Collectors.toList()));
+        loaded.addAndGet(products.size());
+        return products.size();
+    }
+
+    private List<Long> readHotIds() {
+        if (hotIdsLocation.isBlank())
+            return List.of();
+        var resource = new DefaultResourceLoader().getResource(hotIdsLocation);
+        try (var reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "products.search.index", havingValue = "database", matchIfMissing = true)
+public class DatabaseProductSearch implements ProductSearch {
+
+    private final ProductRepository repository;
+
+    @Autowired
+    public DatabaseProductSearch(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public List<ProductDto> search(String namePrefix, Double minPrice, Double maxPrice, int limit) {
+        // Names match ignoring case regardless of the column collation, the same way InMemoryProductSearch does
+        var prefix = namePrefix == null ? null : namePrefix.toLowerCase(Locale.ROOT).replaceAll("[!%_]", "!$0");
+        return repository.search(prefix, minPrice, maxPrice, PageRequest.of(0, limit))
+                .stream()
+                .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.events.ProductChangedEvent;
+import com.example.productsapi.events.ProductChangesSubscribedEvent;
+import com.example.productsapi.repositories.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "products.search.index", havingValue = "memory")
+public class InMemoryProductSearch implements ProductSearch, ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryProductSearch.class);
+    private static final Comparator<ProductDto> BY_PRICE = Comparator.comparing(ProductDto::getPrice)
+            .thenComparingLong(ProductDto::getId);
+
+    private final ProductRepository repository;
+    private final DatabaseProductSearch fallback;
+    private final TransactionTemplate transactions;
+    private final TransactionTemplate primary;
+    private final ConcurrentHashMap<Long, Optional<ProductDto>> changes = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile ProductIndex index;
+    private volatile ScheduledExecutorService rebuilds;
+
+    @Value("${products.search.compact-threshold:1000}")
+    private int compactThreshold;
+
+    @Value("${products.search.rebuild-interval:10m}")
+    private Duration rebuildInterval;
+
+    @Autowired
+    public InMemoryProductSearch(ProductRepository repository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry registry) {
+        this.repository = repository;
+        this.fallback = new DatabaseProductSearch(repository);
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setReadOnly(true);
+        // Change events can arrive before the replicas have applied them, so their rows are read from the primary
+        this.primary = new TransactionTemplate(transactionManager);
+        this.primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("products.search.index.size", this, s -> s.index == null ? 0 : s.index.size())
+                .register(registry);
+        Gauge.builder("products.search.index.pending", changes, Map::size)
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuilds = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "product-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (index == null)
+            rebuild();
+        if (!rebuildInterval.isZero())
+            rebuilds.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilds != null)
+            rebuilds.shutdownNow();
+    }
+
+    // Change events published while the relay was disconnected are lost, so the index is reloaded on resubscribe
+    @EventListener
+    public void onChangesSubscribed(ProductChangesSubscribedEvent event) {
+        var executor = rebuilds;
+        if (executor != null)
+            executor.execute(this::rebuild);
+    }
+
+    public synchronized boolean rebuild() {
+        try {
+            var applied = Map.copyOf(changes);
+            var products = transactions.execute(status -> {
+                try (var all = repository.streamAllDtos()) {
+                    return all.collect(Collectors.toList());
+                }
+            });
+            load(products);
+            var loaded = index;
+            applied.forEach((id, change) -> {
+                var indexed = loaded.versionOf(id);
+                var visible = change.isEmpty()
+                        ? indexed == null
+                        : indexed != null && change.get().getVersion() != null && indexed >= change.get().getVersion();
+                if (visible)
+                    changes.remove(id, change);
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Product search index could not be loaded, searching the database instead", e);
+            return false;
+        }
+    }
+
+    public void load(List<ProductDto> products) {
+        var loaded = ProductIndex.of(products);
+        lock.writeLock().lock();
+        try {
+            index = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index loaded with {} products", loaded.size());
+    }
+
+    @Override
+    public List<ProductDto> search(String namePrefix, Double minPrice, Double maxPrice, int limit) {
+        lock.readLock().lock();
+        try {
+            var current = index;
+            if (current == null)
+                return fallback.search(namePrefix, minPrice, maxPrice, limit);
+
+            var prefix = namePrefix == null ? null : namePrefix.toLowerCase(Locale.ROOT);
+            var min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+            var max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+            var pending = changes.values()
+                    .stream()
+                    .flatMap(Optional::stream)
+                    .filter(p -> p.getPrice() >= min && p.getPrice() <= max
+                            && (prefix == null || p.getName().toLowerCase(Locale.ROOT).startsWith(prefix)))
+                    .sorted(BY_PRICE)
+                    .collect(Collectors.toList());
+
+            var result = new ArrayList<ProductDto>(Math.min(limit, 64));
+            var positions = current.positions(prefix, min, max)
+                    .filter(pos -> !changes.containsKey(current.ids[pos]))
+                    .iterator();
+            var next = 0;
+            var pos = positions.hasNext() ? positions.nextInt() : -1;
+            while (result.size() < limit && (pos >= 0 || next < pending.size())) {
+                if (pos >= 0 && (next == pending.size() || current.compareTo(pos, pending.get(next)) < 0)) {
+                    result.add(current.get(pos));
+                    pos = positions.hasNext() ? positions.nextInt() : -1;
+                } else {
+                    result.add(pending.get(next++));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.DELETED)
+            event.getProductIds().forEach(id -> changes.put(id, Optional.empty()));
+        else
+            primary.execute(status -> repository.findDtosByIdIn(event.getProductIds())).forEach(this::put);
+
+        if (changes.size() >= compactThreshold && compacting.compareAndSet(false, true))
+            CompletableFuture.runAsync(this::compact);
+    }
+
+    private void put(ProductDto product) {
+        var current = index;
+        var indexed = current == null ? null : current.versionOf(product.getId());
+        if (indexed != null && product.getVersion() != null && indexed >= product.getVersion())
+            return;
+        changes.merge(product.getId(), Optional.of(product), InMemoryProductSearch::newer);
+    }
+
+    private void compact() {
+        try {
+            var current = index;
+            if (current == null)
+                return;
+            var applied = Map.copyOf(changes);
+            var products = new ArrayList<ProductDto>(current.size() + applied.size());
+            for (int pos = 0; pos < current.size(); pos++)
+                if (!applied.containsKey(current.ids[pos]))
+                    products.add(current.get(pos));
+            applied.values().forEach(p -> p.ifPresent(products::add));
+            var compacted = ProductIndex.of(products);
+
+            lock.writeLock().lock();
+            try {
+                if (index != current)
+                    return;
+                index = compacted;
+                applied.forEach(changes::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Product search index compaction failed", e);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private static Optional<ProductDto> newer(Optional<ProductDto> current, Optional<ProductDto> update) {
+        if (current.isEmpty() || update.isEmpty())
+            return Optional.empty();
+        var currentVersion = current.get().getVersion();
+        var updateVersion = update.get().getVersion();
+        return currentVersion != null && updateVersion != null && currentVersion > updateVersion ? current : update;
+    }
+
+    static final class ProductIndex {
+
+        final long[] ids;
+        final double[] prices;
+        final String[] names;
+        final long[] versions;
+        final String[] keys;
+        final int[] byName;
+        final long[] sortedIds;
+        final int[] byId;
+
+        private ProductIndex(List<ProductDto> products) {
+            var n = products.size();
+            ids = new long[n];
+            prices = new double[n];
+            names = new String[n];
+            versions = new long[n];
+            keys = new String[n];
+            for (int pos = 0; pos < n; pos++) {
+                var product = products.get(pos);
+                ids[pos] = product.getId();
+                prices[pos] = product.getPrice();
+                names[pos] = product.getName();
+                versions[pos] = product.getVersion() == null ? 0L : product.getVersion();
+                keys[pos] = product.getName().toLowerCase(Locale.ROOT);
+            }
+            byName = IntStream.range(0, n)
+                    .boxed()
+                    .sorted(Comparator.comparing(pos -> keys[pos]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            byId = IntStream.range(0, n)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(pos -> ids[pos]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            sortedIds = Arrays.stream(byId).mapToLong(pos -> ids[pos]).toArray();
+        }
+
+        static ProductIndex of(List<ProductDto> products) {
+            var sorted = new ArrayList<>(products);
+            sorted.sort(BY_PRICE);
+            return new ProductIndex(sorted);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        ProductDto get(int pos) {
+            return new ProductDto(ids[pos], names[pos], prices[pos], versions[pos]);
+        }
+
+        Long versionOf(long productId) {
+            var i = Arrays.binarySearch(sortedIds, productId);
+            return i < 0 ? null : versions[byId[i]];
+        }
+
+        int compareTo(int pos, ProductDto product) {
+            var byPrice = Double.compare(prices[pos], product.getPrice());
+            return byPrice != 0 ? byPrice : Long.compare(ids[pos], product.getId());
+        }
+
+        IntStream positions(String prefix, double min, double max) {
+            var lo = firstIndex(0, size(), pos -> prices[pos] >= min);
+            var hi = firstIndex(lo, size(), pos -> prices[pos] > max);
+            if (prefix == null)
+                return IntStream.range(lo, hi);
+
+            var from = firstIndex(0, size(), i -> keys[byName[i]].compareTo(prefix) >= 0);
+            var to = firstIndex(from, size(), i -> !keys[byName[i]].startsWith(prefix));
+            if (to - from < hi - lo)
+                return IntStream.range(from, to)
+                        .map(i -> byName[i])
+                        .filter(pos -> pos >= lo && pos < hi)
+                        .sorted();
+            return IntStream.range(lo, hi)
+                    .filter(pos -> keys[pos].startsWith(prefix));
+        }
+
+        private static int firstIndex(int from, int to, IntPredicate predicate) {
+            while (from < to) {
+                var mid = (from + to) >>> 1;
+                if (predicate.test(mid))
+                    to = mid;
+                else
+                    from = mid + 1;
+            }
+            return from;
+        }
+    }
+}
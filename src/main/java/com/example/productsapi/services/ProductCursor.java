@@ -0,0 +1,26 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.exceptions.InvalidCursorException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+public final class ProductCursor {
+
+    private ProductCursor() { }
+
+    public static String encode(long lastProductId) {
+        var bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastProductId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static long decode(String cursor) {
+        try {
+            var bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES)
+                throw new InvalidCursorException("Cursor " + cursor + " is not valid");
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor " + cursor + " is not valid");
+        }
+    }
+}
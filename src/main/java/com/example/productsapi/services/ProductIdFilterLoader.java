@@ -0,0 +1,95 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.cache.MissingProductCache;
+import com.example.productsapi.events.ProductChangesSubscribedEvent;
+import com.example.productsapi.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductIdFilterLoader implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdFilterLoader.class);
+
+    private final ProductRepository repository;
+    private final MissingProductCache missing;
+    private final TransactionTemplate transactions;
+    private volatile ScheduledExecutorService rebuilds;
+
+    @Value("${products.cache.missing.bloom-filter.rebuild-interval:10m}")
+    private Duration rebuildInterval;
+
+    @Autowired
+    public ProductIdFilterLoader(ProductRepository repository,
+                                 MissingProductCache missing,
+                                 PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.missing = missing;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!missing.hasFilter())
+            return;
+        rebuilds = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "product-id-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuild();
+        if (!rebuildInterval.isZero())
+            rebuilds.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilds != null)
+            rebuilds.shutdownNow();
+    }
+
+    @EventListener
+    public void onChangesSubscribed(ProductChangesSubscribedEvent event) {
+        if (!missing.hasFilter())
+            return;
+        missing.suspendFilter();
+        var executor = rebuilds;
+        if (executor != null)
+            executor.execute(this::rebuild);
+    }
+
+    public synchronized boolean rebuild() {
+        try {
+            var ready = missing.rebuildFilter(filter -> transactions.executeWithoutResult(status -> {
+                try (var ids = repository.streamAllIds()) {
+                    ids.forEach(filter::put);
+                }
+            }));
+            if (ready)
+                log.info("Product id filter loaded");
+            return ready;
+        } catch (RuntimeException e) {
+            log.warn("Product id filter could not be loaded, unknown ids will fall through to the database", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.dtos.ProductDto;
+import java.util.List;
+
+public interface ProductSearch {
+    List<ProductDto> search(String namePrefix, Double minPrice, Double maxPrice, int limit);
+}
@@ -1,15 +1,31 @@
 package com.example.productsapi.services;
 
+import com.example.productsapi.cache.ProductJson;
 import com.example.productsapi.dtos.CreateProductDto;
 import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.ProductStatisticsDto;
 import com.example.productsapi.dtos.UpdateProductDto;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface ProductService {
     ProductDto create(CreateProductDto dto);
     ProductDto update(UpdateProductDto dto);
+    Long patch(UpdateProductDto dto);
     void delete(long productId);
+    List<ProductDto> createAll(List<CreateProductDto> dtos);
+    List<ProductDto> updateAll(List<UpdateProductDto> dtos);
+    void deleteAll(Collection<Long> productIds);
     Optional<ProductDto> getById(long productId);
+    <T> Optional<T> getById(long productId, Function<ProductJson, T> cachedJson, Function<ProductDto, T> product);
+    List<ProductDto> getByIds(List<Long> productIds);
     List<ProductDto> getAll();
+    ProductPageDto getPage(String cursor, int limit);
+    List<ProductDto> search(String namePrefix, Double minPrice, Double maxPrice, int limit);
+    void exportAll(Consumer<ProductDto> consumer);
+    ProductStatisticsDto getStatistics();
 }
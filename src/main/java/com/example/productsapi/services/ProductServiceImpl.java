@@ -1,105 +1,420 @@
 package com.example.productsapi.services;
 
+import com.example.productsapi.cache.MissingProductCache;
+import com.example.productsapi.cache.ProductCache;
 import com.example.productsapi.cache.ProductCacheEntity;
-import com.example.productsapi.cache.ProductCacheRepository;
+import com.example.productsapi.cache.ProductJson;
+import com.example.productsapi.cache.SingleFlight;
+import com.example.productsapi.datasource.ReplicaRoutingDataSource;
 import com.example.productsapi.dtos.CreateProductDto;
 import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.ProductStatisticsDto;
 import com.example.productsapi.dtos.UpdateProductDto;
 import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.events.ProductChangedEvent;
 import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.exceptions.VersionConflictException;
 import com.example.productsapi.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductServiceImpl implements ProductService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int BULK_FLUSH_SIZE = 100;
+
     private final ProductRepository repository;
-    private final ProductCacheRepository cacheRepository;
+    private final ProductCache cache;
+    private final MissingProductCache missing;
+    private final ApplicationEventPublisher events;
+    private final EntityManager entityManager;
+    private final SingleFlight<Long, Optional<ProductEntity>> loads;
+    private final ProductSearch search;
+    private final ProductStatistics statistics;
+    private final ProductServiceMetrics metrics;
+    private final TransactionTemplate transactions;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository repository, ProductCacheRepository cacheRepository) {
+    public ProductServiceImpl(ProductRepository repository,
+                              ProductCache cache,
+                              MissingProductCache missing,
+                              ApplicationEventPublisher events,
+                              EntityManager entityManager,
+                              SingleFlight<Long, Optional<ProductEntity>> loads,
+                              ProductSearch search,
+                              ProductStatistics statistics,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry registry) {
         this.repository = repository;
-        this.cacheRepository = cacheRepository;
+        this.cache = cache;
+        this.missing = missing;
+        this.events = events;
+        this.entityManager = entityManager;
+        this.loads = loads;
+        this.search = search;
+        this.statistics = statistics;
+        this.metrics = new ProductServiceMetrics(registry);
+        this.transactions = new TransactionTemplate(transactionManager);
     }
 
 
     @Override
     public ProductDto create(CreateProductDto dto) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        return metrics.record("create", () -> {
+            var entity = new ProductEntity();
 
-        var entity = new ProductEntity();
-
-        entity.setName(dto.getName());
-        entity.setPrice(dto.getPrice());
+            entity.setName(dto.getName());
+            entity.setPrice(dto.getPrice());
 
-        var result = this.repository.saveAndFlush(entity);
+            var result = this.repository.saveAndFlush(entity);
 
-        putProductToCache(result);
+            putProductToCache(result);
+            statistics.put(Map.of(result.getId(), result.getPrice()));
+            events.publishEvent(ProductChangedEvent.saved(result.getId()));
 
-        return new ProductDto(
-                result.getId(),
-                result.getName(),
-                result.getPrice());
+            return new ProductDto(
+                    result.getId(),
+                    result.getName(),
+                    result.getPrice(),
+                    result.getVersion());
+        });
     }
 
     @Override
     public ProductDto update(UpdateProductDto dto) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        return metrics.record("update", () -> afterSingleUpdate(updateRow(dto)));
+    }
 
-        var opt = repository.findById(dto.getId());
+    @Override
+    public Long patch(UpdateProductDto dto) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        return metrics.record("patch", () -> afterSingleUpdate(updateRow(dto)).getVersion());
+    }
 
-        if (opt.isEmpty())
-            throw new RecordNotFoundException("Product with the Id " + dto.getId() + " was not found");
+    @Override
+    public void delete(long productId) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        metrics.record("delete", () -> {
+            if (repository.deleteByIdReturningCount(productId) == 0)
+                throw new RecordNotFoundException("Product with the Id " + productId + " was not found");
+            cache.evict(productId);
+            statistics.remove(List.of(productId));
+            events.publishEvent(ProductChangedEvent.deleted(productId));
+        });
+    }
 
-        var entity = opt.get();
-        entity.setName(dto.getName());
-        entity.setPrice(dto.getPrice());
-        var result = repository.save(entity);
-        putProductToCache(result);
-        return new ProductDto(result.getId(), result.getName(), result.getPrice());
+    @Override
+    @Transactional
+    public List<ProductDto> createAll(List<CreateProductDto> dtos) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        return metrics.record("createAll", () -> {
+            var saved = new ArrayList<ProductEntity>(dtos.size());
+            for (var dto : dtos) {
+                var entity = new ProductEntity();
+                entity.setName(dto.getName());
+                entity.setPrice(dto.getPrice());
+                saved.add(repository.save(entity));
+                if (saved.size() % BULK_FLUSH_SIZE == 0)
+                    flushAndClear();
+            }
+            flushAndClear();
+            return afterBulkSave(saved);
+        });
     }
 
     @Override
-    public void delete(long productId) {
-        if (!repository.existsById(productId))
-            throw new RecordNotFoundException("Product with the Id " + productId + " was not found");
-        cacheRepository.deleteById(productId);
-        repository.deleteById(productId);
+    @Transactional
+    public List<ProductDto> updateAll(List<UpdateProductDto> dtos) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        return metrics.record("updateAll", () -> {
+            var requested = dtos.stream()
+                    .collect(Collectors.toMap(UpdateProductDto::getId, Function.identity(), (a, b) -> b, LinkedHashMap::new));
+            var saved = new ArrayList<ProductEntity>(requested.size());
+            for (var chunk : partition(List.copyOf(requested.keySet()))) {
+                var entities = repository.findAllById(chunk);
+                if (entities.size() != chunk.size()) {
+                    var found = entities.stream().map(ProductEntity::getId).collect(Collectors.toSet());
+                    var missing = chunk.stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+                    throw new RecordNotFoundException("Product with the Id " + missing + " was not found");
+                }
+                for (var entity : entities) {
+                    var dto = requested.get(entity.getId());
+                    checkVersion(entity, dto);
+                    entity.setName(dto.getName());
+                    entity.setPrice(dto.getPrice());
+                    saved.add(entity);
+                }
+                flushAndClear();
+            }
+            return afterBulkSave(saved);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll(Collection<Long> productIds) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        metrics.record("deleteAll", () -> {
+            var ids = List.copyOf(new LinkedHashSet<>(productIds));
+            var deleted = 0;
+            for (var chunk : partition(ids))
+                deleted += repository.deleteByIdIn(chunk);
+            if (deleted != ids.size())
+                throw new RecordNotFoundException((ids.size() - deleted) + " of the requested products were not found");
+            cache.evictAll(ids);
+            statistics.remove(ids);
+            if (!ids.isEmpty())
+                events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, ids, false));
+        });
     }
 
     @Override
     public Optional<ProductDto> getById(long productId) {
+        var sample = metrics.start("getById");
+        try {
+            var cached = cache.get(productId);
+
+            if (cached.isPresent()) {
+                sample.result(ProductServiceMetrics.HIT);
+                return cached.map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()));
+            }
 
-        if (cacheRepository.existsById(productId)) {
-            var entity = cacheRepository.findById(productId);
-            return entity.map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice()));
+            return load(productId, sample);
+        } finally {
+            sample.stop();
         }
+    }
 
-        var entity = repository.findById(productId);
+    // One cache read: a JSON hit goes to cachedJson as stored, and a miss loads without asking the cache again
+    @Override
+    public <T> Optional<T> getById(long productId, Function<ProductJson, T> cachedJson, Function<ProductDto, T> product) {
+        var sample = metrics.start("getById");
+        try {
+            var cached = cache.getPreferringJson(productId);
+
+            if (cached.isPresent()) {
+                sample.result(ProductServiceMetrics.HIT);
+                var hit = cached.get();
+                if (hit.getJson() != null)
+                    return Optional.of(cachedJson.apply(hit.getJson()));
+                var p = hit.getEntity();
+                return Optional.of(product.apply(new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion())));
+            }
+
+            return load(productId, sample).map(product);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        if (entity.isPresent()) {
-            putProductToCache(entity.get());
-            return entity.map((p) -> new ProductDto(p.getId(), p.getName(), p.getPrice()));
+    private Optional<ProductDto> load(long productId, ProductServiceMetrics.Sample sample) {
+        if (missing.isKnownMissing(productId)) {
+            sample.result(ProductServiceMetrics.NOT_FOUND);
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        var entity = loads.execute(productId, () -> {
+            var loaded = repository.findById(productId);
+            if (loaded.isPresent())
+                putProductToCache(loaded.get());
+            else
+                missing.markMissing(productId);
+            return loaded;
+        });
+
+        sample.result(entity.isPresent() ? ProductServiceMetrics.MISS : ProductServiceMetrics.NOT_FOUND);
+        return entity.map((p) -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()));
     }
 
     @Override
+    public List<ProductDto> getByIds(List<Long> productIds) {
+        var sample = metrics.start("getByIds");
+        try {
+            var ids = new LinkedHashSet<>(productIds);
+            var found = new HashMap<Long, ProductDto>(ids.size());
+            cache.getAll(ids).values()
+                    .forEach(p -> found.put(p.getId(), new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion())));
+
+            var misses = ids.stream()
+                    .filter(id -> !found.containsKey(id))
+                    .collect(Collectors.toList());
+            sample.result(ProductServiceMetrics.HIT);
+            if (!misses.isEmpty()) {
+                var loaded = repository.findAllById(misses);
+                cache.putAll(loaded.stream().map(ProductServiceImpl::toCacheEntity).collect(Collectors.toList()));
+                loaded.forEach(p -> found.put(p.getId(), new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion())));
+                if (loaded.size() != misses.size())
+                    missing.markAllMissing(misses.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList()));
+                sample.result(loaded.size() == misses.size() ? ProductServiceMetrics.MISS : ProductServiceMetrics.NOT_FOUND);
+            }
+
+            return ids.stream()
+                    .map(found::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } finally {
+            sample.stop();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ProductDto> getAll() {
-        return repository.findAll()
+        return metrics.record("getAll", () -> repository.findAll()
                 .stream()
-                .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice()))
+                .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDto getPage(String cursor, int limit) {
+        return metrics.record("getPage", () -> {
+            var pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            var afterId = cursor == null ? 0L : ProductCursor.decode(cursor);
+
+            var rows = repository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+            var hasNext = rows.size() > pageSize;
+            var items = rows.stream()
+                    .limit(pageSize)
+                    .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()))
+                    .collect(Collectors.toList());
+
+            var nextCursor = hasNext ? ProductCursor.encode(items.get(items.size() - 1).getId()) : null;
+            return new ProductPageDto(items, nextCursor);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> search(String namePrefix, Double minPrice, Double maxPrice, int limit) {
+        return metrics.record("search", () -> {
+            if (minPrice != null && maxPrice != null && minPrice > maxPrice)
+                return List.<ProductDto>of();
+            var prefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+            return search.search(prefix, minPrice, maxPrice, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ProductDto> consumer) {
+        metrics.record("exportAll", () -> {
+            try (var products = repository.streamAll()) {
+                products.forEach(p -> {
+                    entityManager.detach(p);
+                    consumer.accept(new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()));
+                });
+            }
+        });
+    }
+
+    @Override
+    public ProductStatisticsDto getStatistics() {
+        return metrics.record("getStatistics", statistics::get);
+    }
+
+    private List<ProductDto> afterBulkSave(List<ProductEntity> saved) {
+        cache.putAll(saved.stream().map(ProductServiceImpl::toCacheEntity).collect(Collectors.toList()));
+        statistics.put(saved.stream().collect(Collectors.toMap(ProductEntity::getId, ProductEntity::getPrice)));
+        var ids = saved.stream().map(ProductEntity::getId).collect(Collectors.toList());
+        if (!ids.isEmpty())
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, ids, false));
+        return saved.stream()
+                .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice(), p.getVersion()))
                 .collect(Collectors.toList());
     }
 
+    // Every single-row write is one UPDATE that keeps the fields it was not given and is conditional only on an
+    // If-Match version. A write that knows the whole new row (name, price and version) is done then; any other
+    // reads the row back in the same transaction, where the UPDATE's row lock makes it see exactly what it wrote
+    private ProductDto updateRow(UpdateProductDto dto) {
+        if (dto.getVersion() != null && dto.getName() != null && dto.getPrice() != null) {
+            if (repository.update(dto.getId(), dto.getName(), dto.getPrice(), dto.getVersion()) == 0)
+                throw notUpdated(dto);
+            return new ProductDto(dto.getId(), dto.getName(), dto.getPrice(), dto.getVersion() + 1);
+        }
+        return transactions.execute(status -> {
+            if (repository.update(dto.getId(), dto.getName(), dto.getPrice(), dto.getVersion()) == 0)
+                throw notUpdated(dto);
+            return repository.findDtoById(dto.getId()).orElseThrow();
+        });
+    }
+
+    private RuntimeException notUpdated(UpdateProductDto dto) {
+        if (dto.getVersion() != null && repository.existsById(dto.getId()))
+            return new VersionConflictException("Product with the Id " + dto.getId() + " is not at version " + dto.getVersion());
+        return new RecordNotFoundException("Product with the Id " + dto.getId() + " was not found");
+    }
+
+    // The cache is always written with a version, never evicted: an empty key would let a concurrent miss that read
+    // the old row (or a lagging replica) put it back, while put-if-newer refuses anything older than what is cached
+    private ProductDto afterSingleUpdate(ProductDto result) {
+        var cacheProduct = new ProductCacheEntity();
+        cacheProduct.setId(result.getId());
+        cacheProduct.setName(result.getName());
+        cacheProduct.setPrice(result.getPrice());
+        cacheProduct.setVersion(result.getVersion());
+        cache.put(cacheProduct);
+        if (result.getPrice() != null)
+            statistics.put(Map.of(result.getId(), result.getPrice()));
+        events.publishEvent(ProductChangedEvent.saved(result.getId()));
+        return result;
+    }
+
+    private static void checkVersion(ProductEntity entity, UpdateProductDto dto) {
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion()))
+            throw new VersionConflictException("Product with the Id " + dto.getId() + " is at version " + entity.getVersion()
+                    + ", not " + dto.getVersion());
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static List<List<Long>> partition(List<Long> ids) {
+        var chunks = new ArrayList<List<Long>>();
+        for (int i = 0; i < ids.size(); i += BULK_FLUSH_SIZE)
+            chunks.add(ids.subList(i, Math.min(i + BULK_FLUSH_SIZE, ids.size())));
+        return chunks;
+    }
+
     private void putProductToCache(ProductEntity entity) {
+        this.cache.put(toCacheEntity(entity));
+    }
+
+    static ProductCacheEntity toCacheEntity(ProductEntity entity) {
         var cacheProduct = new ProductCacheEntity();
         cacheProduct.setId(entity.getId());
         cacheProduct.setName(entity.getName());
         cacheProduct.setPrice(entity.getPrice());
-        this.cacheRepository.save(cacheProduct);
+        cacheProduct.setVersion(entity.getVersion());
+        return cacheProduct;
     }
 }
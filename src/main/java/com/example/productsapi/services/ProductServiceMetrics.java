@@ -0,0 +1,78 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.exceptions.RecordNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class ProductServiceMetrics {
+
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String NOT_FOUND = "not_found";
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ProductServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Sample start(String operation) {
+        return new Sample(operation, registry.config().clock().monotonicTime());
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        var sample = start(operation);
+        try {
+            var result = call.get();
+            sample.result(SUCCESS);
+            return result;
+        } catch (RecordNotFoundException e) {
+            sample.result(NOT_FOUND);
+            throw e;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    public void record(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String operation, String result) {
+        return timers.computeIfAbsent(operation + ':' + result, key -> Timer.builder("products.service.requests")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry));
+    }
+
+    public class Sample {
+
+        private final String operation;
+        private final long startTime;
+        private String result = ERROR;
+
+        private Sample(String operation, long startTime) {
+            this.operation = operation;
+            this.startTime = startTime;
+        }
+
+        public void result(String result) {
+            this.result = result;
+        }
+
+        public void stop() {
+            var elapsed = registry.config().clock().monotonicTime() - startTime;
+            timer(operation, result).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.dtos.ProductStatisticsDto;
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductStatistics {
+    void put(Map<Long, Double> prices);
+    void remove(Collection<Long> productIds);
+    ProductStatisticsDto get();
+}
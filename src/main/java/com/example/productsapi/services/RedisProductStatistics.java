@@ -0,0 +1,240 @@
+package com.example.productsapi.services;
+
+import com.example.productsapi.dtos.PriceBucketDto;
+import com.example.productsapi.dtos.PriceSummaryDto;
+import com.example.productsapi.dtos.ProductStatisticsDto;
+import com.example.productsapi.repositories.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RedisProductStatistics implements ProductStatistics, ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisProductStatistics.class);
+    private static final RedisScript<Long> UPDATE = RedisScript.of(new ClassPathResource("redis/update-stats.lua"), Long.class);
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List<String>> READ =
+            (RedisScript<List<String>>) (RedisScript<?>) RedisScript.of(new ClassPathResource("redis/read-stats.lua"), List.class);
+    private static final RedisScript<Long> REPLACE = RedisScript.of(new ClassPathResource("redis/replace-stats.lua"), Long.class);
+    private static final String BUCKETS_FIELD = "buckets";
+    private static final int BATCH_SIZE = 500;
+    private static final double SUM_TOLERANCE = 1e-6;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository repository;
+    private final TransactionTemplate transactions;
+    private final Counter consistent;
+    private final Counter rebuilt;
+    private final Counter failed;
+    private ScheduledExecutorService reconciliations;
+
+    @Value("${products.stats.key-prefix:products:stats:}")
+    private String keyPrefix;
+
+    @Value("${products.stats.price-buckets:10,50,100,500,1000}")
+    private List<Double> buckets;
+
+    @Value("${products.stats.reconcile-interval:10m}")
+    private Duration reconcileInterval;
+
+    @Autowired
+    public RedisProductStatistics(StringRedisTemplate redisTemplate,
+                                  ProductRepository repository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.repository = repository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.consistent = reconciliations(registry, "consistent");
+        this.rebuilt = reconciliations(registry, "rebuilt");
+        this.failed = reconciliations(registry, "failed");
+    }
+
+    @Override
+    public void put(Map<Long, Double> prices) {
+        try {
+            update("live", prices);
+        } catch (RuntimeException e) {
+            log.warn("Could not update price statistics of {} products, the next reconciliation will repair them", prices.size(), e);
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> productIds) {
+        var removed = new LinkedHashMap<Long, Double>();
+        productIds.forEach(id -> removed.put(id, null));
+        put(removed);
+    }
+
+    @Override
+    public ProductStatisticsDto get() {
+        var snapshot = read();
+        var histogram = new ArrayList<PriceBucketDto>(buckets.size() + 1);
+        for (int i = 0; i <= buckets.size(); i++) {
+            histogram.add(new PriceBucketDto(
+                    i == 0 ? null : buckets.get(i - 1),
+                    i == buckets.size() ? null : buckets.get(i),
+                    Long.parseLong(snapshot.fields.getOrDefault("bucket:" + i, "0"))));
+        }
+        var average = snapshot.count == 0 ? null : snapshot.sum / snapshot.count;
+        return new ProductStatisticsDto(snapshot.count, snapshot.min, snapshot.max, average, histogram);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (reconcileInterval.isZero())
+            return;
+        reconciliations = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "product-stats-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciliations.scheduleWithFixedDelay(this::reconcile, 0, reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (reconciliations != null)
+            reconciliations.shutdownNow();
+    }
+
+    public boolean reconcile() {
+        try {
+            var lock = redisTemplate.opsForValue().setIfAbsent(keyPrefix + "reconcile", "1", reconcileInterval.dividedBy(2));
+            if (!Boolean.TRUE.equals(lock))
+                return false;
+            var summary = transactions.execute(status -> repository.summarizePrices());
+            if (matches(summary, read())) {
+                consistent.increment();
+                return false;
+            }
+            rebuild();
+            rebuilt.increment();
+            log.info("Price statistics drifted from the database and were rebuilt");
+            return true;
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Price statistics could not be reconciled", e);
+            return false;
+        }
+    }
+
+    // While the rebuilt totals exist, put() and remove() write to them as well, so changes made during the
+    // stream are not lost by the swap; the stream skips ids changed meanwhile, as its rows may be older
+    private void rebuild() {
+        var keys = keys();
+        redisTemplate.delete(keys.subList(2, keys.size()));
+        redisTemplate.opsForHash().put(keys.get(3), BUCKETS_FIELD, bucketsValue());
+        transactions.executeWithoutResult(status -> {
+            try (var products = repository.streamAllDtos()) {
+                var chunk = new LinkedHashMap<Long, Double>(BATCH_SIZE);
+                products.forEach(p -> {
+                    chunk.put(p.getId(), p.getPrice());
+                    if (chunk.size() == BATCH_SIZE) {
+                        update("rebuild", chunk);
+                        chunk.clear();
+                    }
+                });
+                update("rebuild", chunk);
+            }
+        });
+        redisTemplate.execute(REPLACE, keys);
+    }
+
+    private void update(String target, Map<Long, Double> prices) {
+        var keys = keys();
+        var entries = new ArrayList<>(prices.entrySet());
+        for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+            var chunk = entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()));
+            var args = new ArrayList<String>(2 + buckets.size() + 2 * chunk.size());
+            args.add(target);
+            args.add(Integer.toString(buckets.size()));
+            buckets.forEach(b -> args.add(b.toString()));
+            for (var entry : chunk) {
+                args.add(entry.getKey().toString());
+                args.add(entry.getValue() == null ? "" : entry.getValue().toString());
+            }
+            redisTemplate.execute(UPDATE, keys, args.toArray());
+        }
+    }
+
+    private Snapshot read() {
+        var values = redisTemplate.execute(READ, keys().subList(0, 2));
+        var fields = new HashMap<String, String>();
+        for (int i = 3; i + 1 < values.size(); i += 2)
+            fields.put(values.get(i), values.get(i + 1));
+        return new Snapshot(Long.parseLong(values.get(0)), parse(values.get(1)), parse(values.get(2)),
+                Double.parseDouble(fields.getOrDefault("sum", "0")), fields);
+    }
+
+    private boolean matches(PriceSummaryDto summary, Snapshot snapshot) {
+        var sum = summary.getSum() == null ? 0d : summary.getSum();
+        return summary.getCount() == snapshot.count
+                && Objects.equals(summary.getMinPrice(), snapshot.min)
+                && Objects.equals(summary.getMaxPrice(), snapshot.max)
+                && Math.abs(sum - snapshot.sum) <= SUM_TOLERANCE * Math.max(1, Math.abs(sum))
+                && bucketsValue().equals(snapshot.fields.get(BUCKETS_FIELD));
+    }
+
+    private List<String> keys() {
+        return List.of(keyPrefix + "prices", keyPrefix + "totals",
+                keyPrefix + "prices:rebuild", keyPrefix + "totals:rebuild", keyPrefix + "changed:rebuild");
+    }
+
+    private String bucketsValue() {
+        return buckets.stream().map(Object::toString).collect(Collectors.joining(","));
+    }
+
+    private static Double parse(String value) {
+        return value == null || value.isEmpty() ? null : Double.valueOf(value);
+    }
+
+    private static Counter reconciliations(MeterRegistry registry, String result) {
+        return Counter.builder("products.stats.reconciliations")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static class Snapshot {
+        private final long count;
+        private final Double min;
+        private final Double max;
+        private final double sum;
+        private final Map<String, String> fields;
+
+        private Snapshot(long count, Double min, Double max, double sum, Map<String, String> fields) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+            this.fields = fields;
+        }
+    }
+}
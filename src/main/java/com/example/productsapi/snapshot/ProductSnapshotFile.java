@@ -0,0 +1,153 @@
+package com.example.productsapi.snapshot;
+
+import com.example.productsapi.dtos.ProductDto;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+public final class ProductSnapshotFile {
+
+    static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x50534E50;
+    private static final int FORMAT = 1;
+    private static final int RECORD_FIXED_SIZE = 26;
+    private static final int MAX_NAME_SIZE = 0xFFFF;
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private final Path path;
+    private final Instant watermark;
+    private final Instant createdAt;
+    private final long count;
+
+    private ProductSnapshotFile(Path path, Instant watermark, Instant createdAt, long count) {
+        this.path = path;
+        this.watermark = watermark;
+        this.createdAt = createdAt;
+        this.count = count;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public static ProductSnapshotFile write(Path path, Instant watermark, Iterator<ProductDto> products) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            var deflater = new Deflater(Deflater.BEST_SPEED);
+            long count = 0;
+            try {
+                var deflating = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, BUFFER_SIZE);
+                var out = new DataOutputStream(new BufferedOutputStream(deflating, BUFFER_SIZE));
+                while (products.hasNext()) {
+                    var product = products.next();
+                    var name = product.getName().getBytes(StandardCharsets.UTF_8);
+                    if (name.length > MAX_NAME_SIZE)
+                        throw new IOException("Name of product " + product.getId() + " is too long for a snapshot");
+                    out.writeLong(product.getId());
+                    out.writeLong(product.getVersion() == null ? -1 : product.getVersion());
+                    out.writeDouble(product.getPrice());
+                    out.writeShort(name.length);
+                    out.write(name);
+                    count++;
+                }
+                out.flush();
+                deflating.finish();
+            } finally {
+                deflater.end();
+            }
+            var createdAt = Instant.ofEpochMilli(System.currentTimeMillis());
+            var header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT)
+                    .putLong(watermark.toEpochMilli())
+                    .putLong(createdAt.toEpochMilli())
+                    .putLong(count)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+            return new ProductSnapshotFile(path, Instant.ofEpochMilli(watermark.toEpochMilli()), createdAt, count);
+        }
+    }
+
+    public static ProductSnapshotFile open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            return header(path, header.flip());
+        }
+    }
+
+    public void forEach(Consumer<ProductDto> consumer) throws IOException {
+        ByteBuffer mapped;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Product snapshot " + path + " is too large to map");
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        header(path, mapped);
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(mapped.position(HEADER_SIZE).slice());
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            var name = new byte[MAX_NAME_SIZE];
+            long read = 0;
+            while (!inflater.finished()) {
+                if (inflater.inflate(buffer) == 0 && inflater.needsInput())
+                    throw new IOException("Product snapshot " + path + " is truncated");
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_FIXED_SIZE
+                        && buffer.remaining() >= RECORD_FIXED_SIZE + Short.toUnsignedInt(buffer.getShort(buffer.position() + 24))) {
+                    var id = buffer.getLong();
+                    var version = buffer.getLong();
+                    var price = buffer.getDouble();
+                    var length = Short.toUnsignedInt(buffer.getShort());
+                    buffer.get(name, 0, length);
+                    consumer.accept(new ProductDto(id, new String(name, 0, length, StandardCharsets.UTF_8), price,
+                            version < 0 ? null : version));
+                    read++;
+                }
+                buffer.compact();
+            }
+            if (read != count || buffer.position() != 0)
+                throw new IOException("Product snapshot " + path + " holds " + read + " products, expected " + count);
+        } catch (DataFormatException e) {
+            throw new IOException("Product snapshot " + path + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ProductSnapshotFile header(Path path, ByteBuffer header) throws IOException {
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT)
+            throw new IOException(path + " is not a product snapshot");
+        return new ProductSnapshotFile(path,
+                Instant.ofEpochMilli(header.getLong(8)),
+                Instant.ofEpochMilli(header.getLong(16)),
+                header.getLong(24));
+    }
+}
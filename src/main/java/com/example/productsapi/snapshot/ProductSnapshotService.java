@@ -0,0 +1,298 @@
+package com.example.productsapi.snapshot;
+
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.events.ProductChangedEvent;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.InMemoryProductSearch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "products.snapshot.enabled", havingValue = "true")
+public class ProductSnapshotService implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSnapshotService.class);
+    private static final String FILE_PREFIX = "products-";
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ProductRepository repository;
+    private final ProductCache cache;
+    private final ObjectProvider<InMemoryProductSearch> searchIndex;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactions;
+    private final Timer writes;
+    private final AtomicLong products = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${products.snapshot.directory:snapshots}")
+    private Path directory;
+
+    @Value("${products.snapshot.interval:1h}")
+    private Duration interval;
+
+    @Value("${products.snapshot.retain:2}")
+    private int retain;
+
+    @Value("${products.snapshot.max-age:6h}")
+    private Duration maxAge;
+
+    @Value("${products.snapshot.watermark-overlap:1m}")
+    private Duration watermarkOverlap;
+
+    @Value("${products.snapshot.restore-on-startup:false}")
+    private boolean restoreOnStartup;
+
+    @Value("${products.snapshot.source-url:}")
+    private String sourceUrl;
+
+    @Value("${products.snapshot.deletions-key:products:snapshot:deleted}")
+    private String deletionsKey;
+
+    @Autowired
+    public ProductSnapshotService(ProductRepository repository,
+                                  ProductCache cache,
+                                  ObjectProvider<InMemoryProductSearch> searchIndex,
+                                  StringRedisTemplate redisTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry) {
+        this.repository = repository;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.redisTemplate = redisTemplate;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setReadOnly(true);
+        this.writes = Timer.builder("products.snapshot.writes").register(registry);
+        Gauge.builder("products.snapshot.products", products, AtomicLong::get).register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Files.createDirectories(directory);
+        if (restoreOnStartup)
+            restore();
+        if (interval.isZero())
+            return;
+        var age = latest().map(s -> Duration.between(s.getCreatedAt(), Instant.now())).orElse(interval);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "product-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Product snapshot could not be written", e);
+            }
+        }, Math.max(0, interval.minus(age).toMillis()), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    public Optional<ProductSnapshotFile> latest() {
+        for (var path : snapshotFiles()) {
+            try {
+                return Optional.of(ProductSnapshotFile.open(path));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable product snapshot {}", path, e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public ProductSnapshotFile write() throws IOException {
+        var sample = Timer.start();
+        var watermark = Instant.now().minus(watermarkOverlap);
+        var temporary = directory.resolve(FILE_PREFIX + System.nanoTime() + ".tmp");
+        try {
+            var written = transactions.execute(status -> {
+                try (var stream = repository.streamAllDtos()) {
+                    return ProductSnapshotFile.write(temporary, watermark, stream.iterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            var target = directory.resolve(FILE_PREFIX + written.getCreatedAt().toEpochMilli() + FILE_SUFFIX);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            prune();
+            products.set(written.getCount());
+            log.info("Product snapshot {} written with {} products", target.getFileName(), written.getCount());
+            return ProductSnapshotFile.open(target);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(temporary);
+            sample.stop(writes);
+        }
+    }
+
+    public boolean restore() {
+        try {
+            var snapshot = latest().filter(this::isFresh).or(this::download);
+            if (snapshot.isEmpty()) {
+                log.info("No product snapshot younger than {} to restore from", maxAge);
+                return false;
+            }
+            var index = searchIndex.getIfAvailable();
+            var restored = index == null ? null : new LinkedHashMap<Long, ProductDto>();
+            var chunk = new ArrayList<ProductCacheEntity>(CHUNK_SIZE);
+            snapshot.get().forEach(product -> {
+                if (restored != null)
+                    restored.put(product.getId(), product);
+                chunk.add(toCacheEntity(product));
+                if (chunk.size() == CHUNK_SIZE) {
+                    cache.putAll(chunk);
+                    chunk.clear();
+                }
+            });
+            cache.putAll(chunk);
+
+            var watermark = snapshot.get().getWatermark();
+            var changed = transactions.execute(status -> {
+                try (var stream = repository.streamDtosUpdatedSince(watermark)) {
+                    return stream.collect(Collectors.toList());
+                }
+            });
+            var deleted = deletedSince(watermark);
+            cache.putAll(changed.stream().map(ProductSnapshotService::toCacheEntity).collect(Collectors.toList()));
+            cache.evictAll(deleted);
+            if (index != null) {
+                changed.forEach(product -> restored.put(product.getId(), product));
+                deleted.forEach(restored::remove);
+                index.load(new ArrayList<>(restored.values()));
+            }
+            log.info("Restored {} products from snapshot {}, then replayed {} changes and {} deletions since {}",
+                    snapshot.get().getCount(), snapshot.get().getPath().getFileName(), changed.size(), deleted.size(), watermark);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Product snapshot could not be restored, loading from the database instead", e);
+            return false;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.DELETED || event.isRemote())
+            return;
+        var score = (double) Instant.now().toEpochMilli();
+        var tuples = event.getProductIds().stream()
+                .map(id -> (ZSetOperations.TypedTuple<String>) new DefaultTypedTuple<>(id.toString(), score))
+                .collect(Collectors.toSet());
+        redisTemplate.opsForZSet().add(deletionsKey, tuples);
+    }
+
+    private List<Long> deletedSince(Instant watermark) {
+        var ids = redisTemplate.opsForZSet().rangeByScore(deletionsKey, watermark.toEpochMilli(), Double.POSITIVE_INFINITY);
+        return ids == null ? List.of() : ids.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private boolean isFresh(ProductSnapshotFile snapshot) {
+        return snapshot.getCreatedAt().isAfter(Instant.now().minus(maxAge));
+    }
+
+    private Optional<ProductSnapshotFile> download() {
+        if (sourceUrl.isBlank())
+            return Optional.empty();
+        var temporary = directory.resolve(FILE_PREFIX + System.nanoTime() + ".tmp");
+        try {
+            var response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(sourceUrl)).build(),
+                    HttpResponse.BodyHandlers.ofFile(temporary));
+            if (response.statusCode() != 200)
+                throw new IOException("Snapshot download from " + sourceUrl + " failed with status " + response.statusCode());
+            var downloaded = ProductSnapshotFile.open(temporary);
+            var target = directory.resolve(FILE_PREFIX + downloaded.getCreatedAt().toEpochMilli() + FILE_SUFFIX);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return Optional.of(ProductSnapshotFile.open(target)).filter(this::isFresh);
+        } catch (IOException e) {
+            log.warn("Product snapshot could not be downloaded from {}", sourceUrl, e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                log.debug("Could not delete {}", temporary, e);
+            }
+        }
+    }
+
+    private void prune() throws IOException {
+        var files = snapshotFiles();
+        for (var path : files.subList(Math.min(retain, files.size()), files.size()))
+            Files.deleteIfExists(path);
+        var horizon = Instant.now().minus(maxAge).minus(watermarkOverlap).toEpochMilli();
+        redisTemplate.opsForZSet().removeRangeByScore(deletionsKey, Double.NEGATIVE_INFINITY, horizon);
+    }
+
+    private List<Path> snapshotFiles() {
+        try (var files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(FILE_PREFIX)
+                            && p.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ProductCacheEntity toCacheEntity(ProductDto product) {
+        var cacheProduct = new ProductCacheEntity();
+        cacheProduct.setId(product.getId());
+        cacheProduct.setName(product.getName());
+        cacheProduct.setPrice(product.getPrice());
+        cacheProduct.setVersion(product.getVersion());
+        return cacheProduct;
+    }
+}
@@ -0,0 +1,17 @@
+-- KEYS[1] keyspace set, KEYS[2..] product hashes; ARGV per hash: version ('' when unversioned), id,
+-- number of field/value arguments, field/value pairs.
+local a = 1
+local written = 0
+for k = 2, #KEYS do
+    local version = ARGV[a]
+    local count = tonumber(ARGV[a + 2])
+    local current = version ~= '' and redis.call('HGET', KEYS[k], 'version') or nil
+    if not current or tonumber(current) <= tonumber(version) then
+        redis.call('DEL', KEYS[k])
+        redis.call('HMSET', KEYS[k], unpack(ARGV, a + 3, a + 2 + count))
+        redis.call('SADD', KEYS[1], ARGV[a + 1])
+        written = written + 1
+    end
+    a = a + 3 + count
+end
+return written
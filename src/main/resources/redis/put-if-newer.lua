@@ -0,0 +1,42 @@
+-- KEYS product keys; ARGV[1] ttl in ms, then per key: version ('' when unversioned), encoded product.
+-- The stored version is read from the ProductCacheCodec (format 2) or JsonRedisProductCache (format 3) header.
+local function stored_version(value)
+    if not value or string.len(value) < 10 then
+        return nil
+    end
+    local format = string.byte(value, 1)
+    local flags = string.byte(value, 2)
+    local offset
+    if format == 2 and flags % 8 >= 4 then
+        offset = 11
+        if flags % 4 >= 2 then
+            offset = 19
+        end
+    elseif format == 3 and flags % 2 == 1 then
+        offset = 3
+    end
+    if not offset or string.len(value) < offset + 7 then
+        return nil
+    end
+    local version = 0
+    for i = offset, offset + 7 do
+        version = version * 256 + string.byte(value, i)
+    end
+    return version
+end
+
+local ttl = tonumber(ARGV[1])
+local written = 0
+for k = 1, #KEYS do
+    local version = ARGV[k * 2]
+    local current = version ~= '' and stored_version(redis.call('GET', KEYS[k])) or nil
+    if not current or current <= tonumber(version) then
+        if ttl > 0 then
+            redis.call('SET', KEYS[k], ARGV[k * 2 + 1], 'PX', ttl)
+        else
+            redis.call('SET', KEYS[k], ARGV[k * 2 + 1])
+        end
+        written = written + 1
+    end
+end
+return written
@@ -0,0 +1,8 @@
+-- KEYS[1] prices, KEYS[2] totals; returns count, min and max price ('' when empty), then the totals fields.
+local min = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+local max = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')
+local result = { tostring(redis.call('ZCARD', KEYS[1])), min[2] or '', max[2] or '' }
+for _, value in ipairs(redis.call('HGETALL', KEYS[2])) do
+    result[#result + 1] = value
+end
+return result
@@ -0,0 +1,11 @@
+-- KEYS[1] prices, KEYS[2] totals, KEYS[3] rebuilt prices, KEYS[4] rebuilt totals,
+-- KEYS[5] set of ids changed during the rebuild.
+for i = 1, 2 do
+    if redis.call('EXISTS', KEYS[i + 2]) == 1 then
+        redis.call('RENAME', KEYS[i + 2], KEYS[i])
+    else
+        redis.call('DEL', KEYS[i])
+    end
+end
+redis.call('DEL', KEYS[5])
+return 1
@@ -0,0 +1,45 @@
+-- KEYS[1] prices (sorted set of product id -> price), KEYS[2] totals hash (sum, bucket:<n> counts),
+-- KEYS[3] rebuilt prices, KEYS[4] rebuilt totals, KEYS[5] set of ids changed while a rebuild runs;
+-- ARGV[1] 'live' or 'rebuild', ARGV[2] number of bucket boundaries, ARGV[3..] ascending boundaries,
+-- then id/price pairs ('' removes the id).
+-- A live change goes to KEYS[1]/KEYS[2] and, while a rebuild runs (KEYS[4] exists), to the rebuilt keys too,
+-- recording its id in KEYS[5]. A rebuild change goes to the rebuilt keys only and skips ids in KEYS[5],
+-- whose values are newer than the rows being streamed.
+local n = tonumber(ARGV[2])
+local function bucket(price)
+    local b = 0
+    for i = 1, n do
+        if price < tonumber(ARGV[2 + i]) then break end
+        b = i
+    end
+    return 'bucket:' .. b
+end
+local function apply(prices, totals, id, price)
+    local old = redis.call('ZSCORE', prices, id)
+    if old then
+        redis.call('HINCRBYFLOAT', totals, 'sum', -tonumber(old))
+        redis.call('HINCRBY', totals, bucket(tonumber(old)), -1)
+    end
+    if price ~= '' then
+        redis.call('ZADD', prices, price, id)
+        redis.call('HINCRBYFLOAT', totals, 'sum', price)
+        redis.call('HINCRBY', totals, bucket(tonumber(price)), 1)
+    elseif old then
+        redis.call('ZREM', prices, id)
+    end
+end
+local live = ARGV[1] == 'live'
+local rebuilding = live and redis.call('EXISTS', KEYS[4]) == 1
+for a = n + 3, #ARGV, 2 do
+    local id, price = ARGV[a], ARGV[a + 1]
+    if live then
+        apply(KEYS[1], KEYS[2], id, price)
+        if rebuilding then
+            apply(KEYS[3], KEYS[4], id, price)
+            redis.call('SADD', KEYS[5], id)
+        end
+    elseif redis.call('SISMEMBER', KEYS[5], id) == 0 then
+        apply(KEYS[3], KEYS[4], id, price)
+    end
+end
+return redis.call('ZCARD', live and KEYS[1] or KEYS[3])
@@ -0,0 +1,143 @@
+package com.example.productsapi;
+
+import com.example.productsapi.exceptions.ServiceOverloadedException;
+import com.example.productsapi.limits.AdaptiveConcurrencyLimit;
+import com.example.productsapi.limits.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimitTests {
+    private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private AdaptiveConcurrencyLimit reads;
+    private AdaptiveConcurrencyLimit writes;
+    private ConcurrencyLimitInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        reads = new AdaptiveConcurrencyLimit("read", 20, 5, 100, 2.0, 0.2);
+        writes = new AdaptiveConcurrencyLimit("write", 2, 1, 10, 2.0, 0.2);
+        interceptor = new ConcurrencyLimitInterceptor(reads, writes, Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void limitWhenReachedShouldRejectAndCount() {
+        var registry = new SimpleMeterRegistry();
+        writes.bindTo(registry);
+        assertTrue(writes.tryAcquire());
+        assertTrue(writes.tryAcquire());
+        assertFalse(writes.tryAcquire());
+        writes.release();
+        assertTrue(writes.tryAcquire());
+        assertEquals(2d, registry.get("products.concurrency.in-flight").tag("type", "write").gauge().value());
+        assertEquals(1d, registry.get("products.concurrency.rejections").tag("type", "write").functionCounter().count());
+        assertEquals(2d, registry.get("products.concurrency.limit").tag("type", "write").gauge().value());
+    }
+
+    @Test
+    public void limitWhenSaturatedAndLatencyIsSteadyShouldGrow() {
+        for (int i = 0; i < 50; i++)
+            saturateAndRelease(BASELINE);
+        assertTrue(reads.getLimit() > 20, "limit " + reads.getLimit());
+        for (int i = 0; i < 500; i++)
+            saturateAndRelease(BASELINE);
+        assertEquals(100, reads.getLimit());
+    }
+
+    @Test
+    public void limitWhenNotSaturatedShouldNotGrow() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(reads.tryAcquire());
+            reads.release(BASELINE, false);
+        }
+        assertEquals(20, reads.getLimit());
+    }
+
+    @Test
+    public void limitWhenLatencyRisesShouldShrink() {
+        for (int i = 0; i < 20; i++)
+            saturateAndRelease(BASELINE);
+        var before = reads.getLimit();
+        saturateAndRelease(BASELINE * 10);
+        assertTrue(reads.getLimit() < before / 2, before + " -> " + reads.getLimit());
+        for (int i = 0; i < 200; i++)
+            saturateAndRelease(BASELINE * 10);
+        assertTrue(reads.getLimit() > before / 2, "limit should recover once the slower latency is the new normal");
+    }
+
+    @Test
+    public void limitWhenRequestFailsShouldBackOff() {
+        assertTrue(reads.tryAcquire());
+        reads.release(BASELINE, true);
+        assertEquals(18, reads.getLimit());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(reads.tryAcquire());
+            reads.release(BASELINE, true);
+        }
+        assertEquals(5, reads.getLimit());
+    }
+
+    @Test
+    public void interceptorShouldUseSeparateLimitsForReadsAndWrites() {
+        var first = request("PUT");
+        var second = request("DELETE");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(second, new MockHttpServletResponse(), null));
+
+        var response = new MockHttpServletResponse();
+        assertThrows(ServiceOverloadedException.class, () -> interceptor.preHandle(request("POST"), response, null));
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(interceptor.preHandle(request("GET"), new MockHttpServletResponse(), null));
+        assertEquals(1, reads.getInFlight());
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertEquals(1, writes.getInFlight());
+        assertTrue(interceptor.preHandle(request("POST"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    public void interceptorWhenResponseIsServerErrorShouldBackOff() {
+        var request = request("POST");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        var response = new MockHttpServletResponse();
+        response.setStatus(500);
+        var limit = new AdaptiveConcurrencyLimit("read", 20, 5, 100, 2.0, 0.2);
+        interceptor = new ConcurrencyLimitInterceptor(limit, limit, Duration.ofSeconds(1));
+        request = request("GET");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(18, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void interceptorWhenRequestGoesAsyncShouldReleaseWithoutSample() {
+        var request = request("GET");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+        assertEquals(0, reads.getInFlight());
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+        assertEquals(0, reads.getInFlight());
+        assertEquals(20, reads.getLimit());
+    }
+
+    private void saturateAndRelease(long rtt) {
+        var limit = reads.getLimit();
+        for (int i = 0; i < limit; i++)
+            assertTrue(reads.tryAcquire());
+        for (int i = 0; i < limit; i++)
+            reads.release(rtt, false);
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/products/1");
+    }
+}
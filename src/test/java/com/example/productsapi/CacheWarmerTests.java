@@ -0,0 +1,151 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.CacheWarmer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheWarmerTests {
+
+    @Mock
+    private ProductRepository repository;
+
+    @Mock
+    private ProductCache cache;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    private SimpleMeterRegistry registry;
+    private CacheWarmer warmer;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        warmer = new CacheWarmer(repository, cache, publisher, registry);
+        ReflectionTestUtils.setField(warmer, "threads", 2);
+        ReflectionTestUtils.setField(warmer, "chunkSize", 10);
+    }
+
+    @Test
+    public void warmUpWhenNoLimitShouldLoadEveryIdRangeIntoCache() {
+        when(repository.findMinId()).thenReturn(1L);
+        when(repository.findMaxId()).thenReturn(25L);
+        when(repository.count()).thenReturn(25L);
+        when(repository.findByIdBetween(anyLong(), anyLong()))
+                .thenAnswer(i -> products(i.getArgument(0), i.getArgument(1)));
+        var progress = warmer.warmUp(0, List.of());
+        assertEquals(25L, progress.getLoaded());
+        assertEquals(25L, progress.getTotal());
+        assertFalse(progress.isRunning());
+        verify(repository).findByIdBetween(1L, 10L);
+        verify(repository).findByIdBetween(11L, 20L);
+        verify(repository).findByIdBetween(21L, 25L);
+        assertEquals(25L, cachedIds().size());
+        assertEquals(25d, registry.get("products.cache.warm-up.loaded").gauge().value());
+    }
+
+    @Test
+    public void warmUpWhenLimitIsSetShouldNotLoadMoreThanLimit() {
+        when(repository.findMinId()).thenReturn(1L);
+        when(repository.findMaxId()).thenReturn(25L);
+        when(repository.count()).thenReturn(25L);
+        lenient().when(repository.findByIdBetween(anyLong(), anyLong()))
+                .thenAnswer(i -> products(i.getArgument(0), i.getArgument(1)));
+        var progress = warmer.warmUp(15, List.of());
+        assertEquals(15L, progress.getLoaded());
+        assertEquals(15L, progress.getTotal());
+        assertEquals(15L, cachedIds().size());
+    }
+
+    @Test
+    public void warmUpWhenHotIdsAreGivenShouldLoadOnlyHottestIds() {
+        when(repository.findAllById(anyIterable())).thenAnswer(i -> {
+            Iterable<Long> ids = i.getArgument(0);
+            return products(ids.iterator().next(), ids.iterator().next());
+        });
+        var progress = warmer.warmUp(1, List.of(7L, 3L, 7L));
+        assertEquals(1L, progress.getLoaded());
+        verify(repository).findAllById(List.of(7L));
+        verify(repository, never()).findByIdBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    public void runWhenWarmingUpOnStartupShouldRefuseTrafficUntilFinished() {
+        ReflectionTestUtils.setField(warmer, "onStartup", true);
+        ReflectionTestUtils.setField(warmer, "hotIdsLocation", "");
+        when(repository.findMinId()).thenReturn(null);
+        when(repository.findMaxId()).thenReturn(null);
+        warmer.run(null);
+        var events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        verify(publisher, times(2)).publishEvent(events.capture());
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, events.getAllValues().get(0).getState());
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, events.getAllValues().get(1).getState());
+        verify(cache, never()).putAll(any());
+    }
+
+    @Test
+    public void warmUpWhenRequestedOnDemandShouldKeepAcceptingTraffic() {
+        when(repository.findMinId()).thenReturn(null);
+        when(repository.findMaxId()).thenReturn(null);
+        warmer.warmUp(0, List.of());
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    public void warmUpAsyncWhenWarmUpIsRunningShouldNotStartAnother() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(repository.findMinId()).thenAnswer(i -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        when(repository.findMaxId()).thenReturn(null);
+        assertTrue(warmer.warmUpAsync(0, List.of()));
+        assertFalse(warmer.warmUpAsync(0, List.of()));
+        assertThrows(IllegalStateException.class, () -> warmer.warmUp(0, List.of()));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        verify(repository, timeout(5000)).count();
+        verify(repository, times(1)).findMinId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> cachedIds() {
+        ArgumentCaptor<Collection<ProductCacheEntity>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(cache, atLeastOnce()).putAll(batches.capture());
+        return batches.getAllValues().stream()
+                .flatMap(Collection::stream)
+                .map(ProductCacheEntity::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static List<ProductEntity> products(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new ProductEntity(id, "Product " + id, 9.99d))
+                .collect(Collectors.toList());
+    }
+}
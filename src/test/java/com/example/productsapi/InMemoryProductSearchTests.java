@@ -0,0 +1,130 @@
+package com.example.productsapi;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.events.ProductChangedEvent;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.InMemoryProductSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryProductSearchTests {
+
+    @Mock
+    private ProductRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private InMemoryProductSearch search;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        search = new InMemoryProductSearch(repository, transactionManager, registry);
+        ReflectionTestUtils.setField(search, "compactThreshold", 1000);
+        ReflectionTestUtils.setField(search, "rebuildInterval", Duration.ZERO);
+        when(repository.streamAllDtos()).thenReturn(Stream.of(
+                new ProductDto(1L, "Xbox Series X", 499.99d, 0L),
+                new ProductDto(2L, "Xbox One", 299.99d, 0L),
+                new ProductDto(3L, "Playstation 5", 499.99d, 0L),
+                new ProductDto(4L, "Playstation 4", 199.99d, 0L),
+                new ProductDto(5L, "Switch", 299.99d, 0L)));
+        search.run(null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        search.destroy();
+    }
+
+    @Test
+    public void searchWhenPriceRangeIsGivenShouldReturnProductsSortedByPriceThenId() {
+        assertEquals(List.of(2L, 5L, 1L, 3L), ids(search.search(null, 250d, 500d, 10)));
+    }
+
+    @Test
+    public void searchWhenNamePrefixIsGivenShouldMatchIgnoringCase() {
+        assertEquals(List.of(4L, 3L), ids(search.search("playstation", null, null, 10)));
+        assertEquals(List.of(2L), ids(search.search("xbox", null, 300d, 10)));
+    }
+
+    @Test
+    public void searchShouldStopAtLimit() {
+        assertEquals(List.of(4L, 2L), ids(search.search(null, null, null, 2)));
+    }
+
+    @Test
+    public void searchWhenProductsChangeShouldReflectChangesBeforeCompaction() {
+        when(repository.findDtosByIdIn(List.of(6L))).thenReturn(List.of(new ProductDto(6L, "Xbox Mini", 99.99d, 0L)));
+        when(repository.findDtosByIdIn(List.of(2L))).thenReturn(List.of(new ProductDto(2L, "Xbox One S", 349.99d, 1L)));
+        search.onProductChanged(ProductChangedEvent.saved(6L));
+        search.onProductChanged(ProductChangedEvent.saved(2L));
+        search.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertEquals(List.of(6L, 2L), ids(search.search("Xbox", null, null, 10)));
+        assertEquals("Xbox One S", search.search("Xbox One", null, null, 10).get(0).getName());
+    }
+
+    @Test
+    public void searchWhenChangesAreCompactedShouldKeepSameResults() throws InterruptedException {
+        ReflectionTestUtils.setField(search, "compactThreshold", 1);
+        when(repository.findDtosByIdIn(List.of(6L))).thenReturn(List.of(new ProductDto(6L, "Xbox Mini", 99.99d, 0L)));
+        search.onProductChanged(ProductChangedEvent.saved(6L));
+        var pending = registry.get("products.search.index.pending").gauge();
+        for (int i = 0; i < 100 && pending.value() > 0; i++)
+            Thread.sleep(10);
+        assertEquals(0d, pending.value());
+        assertEquals(6d, registry.get("products.search.index.size").gauge().value());
+        assertEquals(List.of(6L, 4L, 2L, 5L), ids(search.search(null, null, 300d, 10)));
+    }
+
+    @Test
+    public void onProductChangedWhenProductIsSavedShouldReadItFromThePrimary() {
+        when(repository.findDtosByIdIn(List.of(6L))).thenReturn(List.of(new ProductDto(6L, "Xbox Mini", 99.99d, 0L)));
+        search.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, List.of(6L), true));
+        verify(transactionManager).getTransaction(argThat(definition -> definition != null
+                && !definition.isReadOnly()
+                && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        assertEquals(List.of(6L), ids(search.search("Xbox Mini", null, null, 10)));
+    }
+
+    @Test
+    public void rebuildShouldReloadProductsAndDropChangesItAlreadyContains() {
+        when(repository.findDtosByIdIn(List.of(6L))).thenReturn(List.of(new ProductDto(6L, "Xbox Mini", 99.99d, 0L)));
+        when(repository.findDtosByIdIn(List.of(2L))).thenReturn(List.of(new ProductDto(2L, "Xbox One S", 349.99d, 2L)));
+        search.onProductChanged(ProductChangedEvent.saved(6L));
+        search.onProductChanged(ProductChangedEvent.saved(2L));
+        search.onProductChanged(ProductChangedEvent.deleted(5L));
+        when(repository.streamAllDtos()).thenReturn(Stream.of(
+                new ProductDto(1L, "Xbox Series X", 499.99d, 0L),
+                new ProductDto(2L, "Xbox One S", 349.99d, 1L),
+                new ProductDto(3L, "Playstation 5", 499.99d, 0L),
+                new ProductDto(4L, "Playstation 4", 199.99d, 0L),
+                new ProductDto(6L, "Xbox Mini", 99.99d, 0L),
+                new ProductDto(7L, "Xbox Elite", 179.99d, 0L)));
+        assertTrue(search.rebuild());
+        assertEquals(1d, registry.get("products.search.index.pending").gauge().value());
+        assertEquals(List.of(6L, 7L, 2L, 1L), ids(search.search("xbox", null, null, 10)));
+        assertEquals(349.99d, search.search("Xbox One", null, null, 10).get(0).getPrice());
+        assertEquals(List.of(), ids(search.search("Switch", null, null, 10)));
+    }
+
+    private static List<Long> ids(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).collect(Collectors.toList());
+    }
+}
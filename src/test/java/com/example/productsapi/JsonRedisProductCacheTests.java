@@ -0,0 +1,123 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.CachedProduct;
+import com.example.productsapi.cache.JsonRedisProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.dtos.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JsonRedisProductCacheTests {
+    private static final byte[] KEY = "product:42".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisScriptingCommands scripting;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private SimpleMeterRegistry registry;
+    private JsonRedisProductCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new JsonRedisProductCache(redisTemplate, "product:", Duration.ofHours(1), mapper, registry);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+    }
+
+    @Test
+    public void jsonCacheShouldRoundTripProductThroughStoredBytes() throws Exception {
+        var stored = put(product(42L, "Nintendo Switch – OLED", 349.99d, 3L));
+        when(connection.get(KEY)).thenReturn(stored);
+
+        var decoded = cache.get(42L).orElseThrow();
+        assertEquals(42L, decoded.getId());
+        assertEquals("Nintendo Switch – OLED", decoded.getName());
+        assertEquals(349.99d, decoded.getPrice());
+        assertEquals(3L, decoded.getVersion());
+
+        var json = cache.getPreferringJson(42L).map(CachedProduct::getJson).orElseThrow();
+        assertEquals(3L, json.getVersion());
+        assertEquals(new ProductDto(42L, "Nintendo Switch – OLED", 349.99d, 3L), mapper.readValue(json.getJson(), ProductDto.class));
+    }
+
+    @Test
+    public void jsonCacheShouldRoundTripProductWithoutVersion() {
+        var stored = put(product(7L, "Xbox Series S", null, null));
+        when(connection.get("product:7".getBytes(StandardCharsets.UTF_8))).thenReturn(stored);
+
+        var decoded = cache.get(7L).orElseThrow();
+        assertEquals("Xbox Series S", decoded.getName());
+        assertNull(decoded.getPrice());
+        assertNull(decoded.getVersion());
+        assertNull(cache.getPreferringJson(7L).map(CachedProduct::getJson).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void jsonCacheWhenKeyIsMissingShouldReadRedisOnceAndRecordOneMiss() {
+        assertTrue(cache.getPreferringJson(42L).isEmpty());
+
+        verify(connection, times(1)).get(KEY);
+        assertEquals(1d, registry.get("products.cache.requests").tag("tier", "l2").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void jsonCacheShouldTimeEveryRedisRoundTrip() {
+        put(product(42L, "Nintendo Switch", 299.99d, 1L));
+        cache.getPreferringJson(42L);
+        cache.getAll(List.of(42L, 43L));
+        cache.evict(42L);
+
+        for (var operation : List.of("put", "get", "getAll", "evict"))
+            assertEquals(1, registry.get("products.cache.redis").tag("tier", "l2").tag("operation", operation).timer().count());
+    }
+
+    // put-if-newer is called with KEYS = [key] and ARGV = [ttl, version, value]
+    private byte[] put(ProductCacheEntity product) {
+        var keysAndArgs = new AtomicReference<byte[][]>();
+        when(connection.scriptingCommands()).thenReturn(scripting);
+        when(scripting.evalSha(anyString(), eq(ReturnType.INTEGER), eq(1), any())).thenAnswer(invocation -> {
+            var arguments = invocation.getArguments();
+            keysAndArgs.set(Arrays.copyOfRange(arguments, 3, arguments.length, byte[][].class));
+            return 1L;
+        });
+        cache.put(product);
+        assertArrayEquals(("product:" + product.getId()).getBytes(StandardCharsets.UTF_8), keysAndArgs.get()[0]);
+        return keysAndArgs.get()[3];
+    }
+
+    private static ProductCacheEntity product(long id, String name, Double price, Long version) {
+        var product = new ProductCacheEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.MissingProductCache;
+import com.example.productsapi.cache.ProductIdFilter;
+import com.example.productsapi.events.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MissingProductCacheTests {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> values;
+
+    private ProductIdFilter filter;
+    private MissingProductCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new ProductIdFilter(1000, 0.01);
+        cache = new MissingProductCache(redisTemplate, "product:missing:", Duration.ofSeconds(30),
+                () -> new ProductIdFilter(1000, 0.01), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void idFilterWhenLoadedShouldContainEveryPutIdAndRejectMostOthers() {
+        LongStream.rangeClosed(1, 1000).forEach(filter::put);
+        filter.markReady();
+        assertTrue(LongStream.rangeClosed(1, 1000).allMatch(filter::mightContain));
+        var falsePositives = LongStream.rangeClosed(1001, 11000).filter(filter::mightContain).count();
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void idFilterWhenNotLoadedShouldContainEverything() {
+        assertTrue(filter.mightContain(42L));
+    }
+
+    @Test
+    public void missingCacheWhenIdIsNotInFilterShouldSkipRedis() {
+        assertTrue(cache.rebuildFilter(f -> f.put(1L)));
+        assertTrue(cache.isKnownMissing(42L));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    public void missingCacheWhenIdIsTombstonedShouldBeKnownMissing() {
+        when(redisTemplate.hasKey("product:missing:42")).thenReturn(true);
+        assertTrue(cache.isKnownMissing(42L));
+    }
+
+    @Test
+    public void missingCacheWhenProductIsSavedShouldClearTombstoneAndAddToFilter() {
+        cache.rebuildFilter(f -> { });
+        cache.onProductChanged(ProductChangedEvent.saved(42L));
+        verify(redisTemplate).delete(List.of("product:missing:42"));
+        assertFalse(cache.isKnownMissing(42L));
+    }
+
+    @Test
+    public void missingCacheWhenProductIsSavedDuringRebuildShouldKeepItInRebuiltFilter() {
+        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+        cache.rebuildFilter(f -> cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, List.of(42L), true)));
+        assertFalse(cache.isKnownMissing(42L));
+        assertTrue(cache.isKnownMissing(43L));
+    }
+
+    @Test
+    public void missingCacheWhenFilterIsSuspendedShouldAskRedisUntilRebuilt() {
+        when(redisTemplate.hasKey("product:missing:42")).thenReturn(false);
+        cache.rebuildFilter(f -> { });
+        cache.suspendFilter();
+        assertFalse(cache.isKnownMissing(42L));
+        assertTrue(cache.rebuildFilter(f -> { }));
+        assertTrue(cache.isKnownMissing(42L));
+        verify(redisTemplate, times(1)).hasKey("product:missing:42");
+    }
+
+    @Test
+    public void missingCacheWhenFilterIsSuspendedDuringRebuildShouldNotTrustRebuiltFilter() {
+        when(redisTemplate.hasKey("product:missing:42")).thenReturn(false);
+        assertFalse(cache.rebuildFilter(f -> cache.suspendFilter()));
+        assertFalse(cache.isKnownMissing(42L));
+    }
+
+    @Test
+    public void missingCacheWhenRebuildFailsShouldKeepServingCurrentFilter() {
+        cache.rebuildFilter(f -> f.put(1L));
+        assertThrows(IllegalStateException.class, () -> cache.rebuildFilter(f -> { throw new IllegalStateException(); }));
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, List.of(2L), true));
+        assertTrue(cache.isKnownMissing(42L));
+        assertFalse(cache.isKnownMissing(1L));
+        assertFalse(cache.isKnownMissing(2L));
+    }
+
+    @Test
+    public void missingCacheWhenProductIsDeletedShouldWriteTombstone() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        cache.onProductChanged(ProductChangedEvent.deleted(42L));
+        verify(values).set("product:missing:42", "", Duration.ofSeconds(30));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void missingCacheWhenSeveralIdsAreMarkedShouldWriteTombstonesInOnePipeline() {
+        var connection = mock(RedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(i -> {
+            i.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        cache.markAllMissing(List.of(41L, 42L));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(connection).set(aryEq("product:missing:41".getBytes(StandardCharsets.UTF_8)), aryEq(new byte[0]),
+                any(Expiration.class), eq(RedisStringCommands.SetOption.upsert()));
+        verify(connection).set(aryEq("product:missing:42".getBytes(StandardCharsets.UTF_8)), aryEq(new byte[0]),
+                any(Expiration.class), eq(RedisStringCommands.SetOption.upsert()));
+        verify(redisTemplate, never()).opsForValue();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.CachedProduct;
+import com.example.productsapi.cache.NearProductCache;
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.cache.ProductJson;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.events.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NearProductCacheTests {
+
+    @Mock
+    private ProductCache remote;
+
+    private SimpleMeterRegistry registry;
+    private NearProductCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new NearProductCache(remote, 100, Duration.ofMinutes(1), registry);
+    }
+
+    @Test
+    public void nearCacheWhenProductIsLoadedShouldServeNextReadFromHeap() {
+        var product = product(1L, "Playstation 5", 499.99d);
+        when(remote.get(1L)).thenReturn(Optional.of(product));
+        assertEquals(Optional.of(product), cache.get(1L));
+        assertEquals(Optional.of(product), cache.get(1L));
+        verify(remote, times(1)).get(1L);
+        assertEquals(1d, registry.counter("products.cache.requests", "tier", "l1", "result", "hit").count());
+        assertEquals(1d, registry.counter("products.cache.requests", "tier", "l1", "result", "miss").count());
+    }
+
+    @Test
+    public void nearCacheWhenProductIsPutShouldWriteThroughToRemote() {
+        var product = product(1L, "Playstation 5", 499.99d);
+        cache.put(product);
+        verify(remote).put(product);
+        assertEquals(Optional.of(product), cache.get(1L));
+        verify(remote, never()).get(1L);
+    }
+
+    @Test
+    public void nearCacheWhenOlderVersionIsPutShouldKeepNewerLocalEntry() {
+        var newer = product(1L, "Playstation 5 Slim", 449.99d);
+        newer.setVersion(2L);
+        var older = product(1L, "Playstation 5", 499.99d);
+        older.setVersion(1L);
+        cache.put(newer);
+        cache.put(older);
+        assertEquals("Playstation 5 Slim", cache.get(1L).orElseThrow().getName());
+        verify(remote, never()).get(1L);
+    }
+
+    @Test
+    public void nearCacheWhenEvictedDuringRemoteReadShouldNotFillHeapWithEvictedRow() {
+        var product = product(1L, "Playstation 5", 499.99d);
+        when(remote.get(1L)).thenAnswer(i -> {
+            cache.evict(1L);
+            return Optional.of(product);
+        }).thenReturn(Optional.empty());
+        assertEquals(Optional.of(product), cache.get(1L));
+        assertTrue(cache.get(1L).isEmpty());
+        verify(remote, times(2)).get(1L);
+        verify(remote).evict(1L);
+    }
+
+    @Test
+    public void nearCacheWhenRemoteChangeIsReceivedShouldInvalidateLocalEntry() {
+        var product = product(1L, "Playstation 5", 499.99d);
+        cache.put(product);
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.SAVED, List.of(1L), true));
+        when(remote.get(1L)).thenReturn(Optional.empty());
+        assertTrue(cache.get(1L).isEmpty());
+    }
+
+    @Test
+    public void nearCacheWhenLocalChangeIsReceivedShouldKeepLocalEntry() {
+        var product = product(1L, "Playstation 5", 499.99d);
+        cache.put(product);
+        cache.onProductChanged(ProductChangedEvent.saved(1L));
+        assertEquals(Optional.of(product), cache.get(1L));
+        verify(remote, never()).get(1L);
+    }
+
+    @Test
+    public void nearCacheGetAllShouldOnlyAskRemoteForLocalMisses() {
+        var first = product(1L, "Playstation 5", 499.99d);
+        var second = product(2L, "Xbox Series X", 499.99d);
+        cache.put(first);
+        when(remote.getAll(List.of(2L, 3L))).thenReturn(Map.of(2L, second));
+        assertEquals(Map.of(1L, first, 2L, second), cache.getAll(List.of(1L, 2L, 3L)));
+        assertEquals(Map.of(2L, second), cache.getAll(List.of(2L)));
+        verify(remote, times(1)).getAll(any());
+    }
+
+    @Test
+    public void nearCacheWhenRemoteServesJsonShouldKeepTheBodyOnHeap() {
+        var mapper = new ObjectMapper();
+        var jsonCache = new NearProductCache(remote, 100, Duration.ofMinutes(1), mapper, registry);
+        var body = "{\"id\":1,\"name\":\"Playstation 5\",\"price\":499.99,\"version\":2}".getBytes(StandardCharsets.UTF_8);
+        when(remote.getPreferringJson(1L)).thenReturn(Optional.of(CachedProduct.of(new ProductJson(2L, body))));
+
+        jsonCache.getPreferringJson(1L);
+        var second = jsonCache.getPreferringJson(1L).orElseThrow();
+
+        assertSame(body, second.getJson().getJson());
+        assertEquals("Playstation 5", jsonCache.get(1L).orElseThrow().getName());
+        verify(remote, times(1)).getPreferringJson(1L);
+        verify(remote, never()).get(1L);
+    }
+
+    @Test
+    public void nearCacheWhenRemoteServesJsonShouldSerializeProductsPutLocally() throws Exception {
+        var mapper = new ObjectMapper();
+        var jsonCache = new NearProductCache(remote, 100, Duration.ofMinutes(1), mapper, registry);
+        var product = product(1L, "Playstation 5", 499.99d);
+        product.setVersion(3L);
+        jsonCache.put(product);
+
+        var json = jsonCache.getPreferringJson(1L).orElseThrow().getJson();
+
+        assertEquals(3L, json.getVersion());
+        assertEquals(new ProductDto(1L, "Playstation 5", 499.99d, 3L), mapper.readValue(json.getJson(), ProductDto.class));
+        verify(remote, never()).getPreferringJson(1L);
+    }
+
+    private static ProductCacheEntity product(long id, String name, double price) {
+        var product = new ProductCacheEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.ProductCacheCodec;
+import com.example.productsapi.cache.ProductCacheEntity;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheCodecTests {
+
+    @Test
+    public void codecShouldRoundTripProduct() {
+        var product = new ProductCacheEntity();
+        product.setId(42L);
+        product.setName("Nintendo Switch – OLED");
+        product.setPrice(349.99d);
+        var decoded = ProductCacheCodec.decode(ProductCacheCodec.encode(product)).orElseThrow();
+        assertEquals(42L, decoded.getId());
+        assertEquals("Nintendo Switch – OLED", decoded.getName());
+        assertEquals(349.99d, decoded.getPrice());
+    }
+
+    @Test
+    public void codecShouldRoundTripVersion() {
+        var product = new ProductCacheEntity();
+        product.setId(42L);
+        product.setName("Xbox Series S");
+        product.setVersion(7L);
+        var decoded = ProductCacheCodec.decode(ProductCacheCodec.encode(product)).orElseThrow();
+        assertEquals(7L, decoded.getVersion());
+        assertEquals("Xbox Series S", decoded.getName());
+        assertNull(decoded.getPrice());
+    }
+
+    @Test
+    public void codecShouldRoundTripMissingFields() {
+        var product = new ProductCacheEntity();
+        product.setId(7L);
+        var decoded = ProductCacheCodec.decode(ProductCacheCodec.encode(product)).orElseThrow();
+        assertEquals(7L, decoded.getId());
+        assertNull(decoded.getName());
+        assertNull(decoded.getPrice());
+        assertNull(decoded.getVersion());
+    }
+
+    @Test
+    public void codecWhenNameIsAtMaximumLengthShouldRoundTrip() {
+        var product = new ProductCacheEntity();
+        product.setId(42L);
+        product.setName("a".repeat(65535));
+        var decoded = ProductCacheCodec.decode(ProductCacheCodec.encode(product)).orElseThrow();
+        assertEquals(65535, decoded.getName().length());
+    }
+
+    @Test
+    public void codecWhenNameIsOverMaximumLengthShouldRejectIt() {
+        var product = new ProductCacheEntity();
+        product.setId(42L);
+        product.setName("a".repeat(65536));
+        assertThrows(IllegalArgumentException.class, () -> ProductCacheCodec.encode(product));
+        product.setName("\u20ac".repeat(21846));
+        assertThrows(IllegalArgumentException.class, () -> ProductCacheCodec.encode(product));
+    }
+
+    @Test
+    public void codecWhenNameIsTruncatedShouldReturnEmpty() {
+        var product = new ProductCacheEntity();
+        product.setId(42L);
+        product.setName("Xbox Series S");
+        var bytes = ProductCacheCodec.encode(product);
+        assertTrue(ProductCacheCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)).isEmpty());
+    }
+
+    @Test
+    public void codecWhenFormatIsUnknownShouldReturnEmpty() {
+        var product = new ProductCacheEntity();
+        product.setId(7L);
+        var bytes = ProductCacheCodec.encode(product);
+        bytes[0] = 99;
+        assertTrue(ProductCacheCodec.decode(bytes).isEmpty());
+        assertTrue(ProductCacheCodec.decode(null).isEmpty());
+    }
+}
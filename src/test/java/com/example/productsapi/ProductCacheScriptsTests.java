@@ -0,0 +1,181 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.BinaryRedisProductCache;
+import com.example.productsapi.cache.JsonRedisProductCache;
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.cache.RedisProductCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.Duration;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+public class ProductCacheScriptsTests {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:latest")
+            .withExposedPorts(6379);
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry registry;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getFirstMappedPort()));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void binaryCacheWhenOlderVersionIsPutShouldKeepNewerEntry() {
+        assertOlderVersionLoses(binaryCache());
+    }
+
+    @Test
+    public void binaryCacheWhenNewerVersionIsPutShouldReplaceEntry() {
+        assertNewerVersionWins(binaryCache());
+    }
+
+    @Test
+    public void binaryCacheWhenUnversionedProductIsPutShouldReplaceEntry() {
+        assertUnversionedOverwrites(binaryCache());
+    }
+
+    @Test
+    public void binaryCacheWhenCachedProductHasNoPriceShouldStillReadItsVersion() {
+        var cache = binaryCache();
+        cache.put(product(1L, "Playstation 5 Slim", null, 2L));
+        cache.put(product(1L, "Playstation 5", 499.99d, 1L));
+        assertEquals("Playstation 5 Slim", read(cache, 1L).getName());
+        cache.put(product(1L, "Playstation 5 Pro", null, 3L));
+        assertEquals("Playstation 5 Pro", read(cache, 1L).getName());
+    }
+
+    @Test
+    public void jsonCacheWhenOlderVersionIsPutShouldKeepNewerEntry() {
+        assertOlderVersionLoses(jsonCache());
+    }
+
+    @Test
+    public void jsonCacheWhenNewerVersionIsPutShouldReplaceEntry() {
+        assertNewerVersionWins(jsonCache());
+    }
+
+    @Test
+    public void jsonCacheWhenUnversionedProductIsPutShouldReplaceEntry() {
+        assertUnversionedOverwrites(jsonCache());
+    }
+
+    @Test
+    public void hashCacheWhenOlderVersionIsPutShouldKeepNewerEntry() {
+        assertOlderVersionLoses(hashCache());
+    }
+
+    @Test
+    public void hashCacheWhenNewerVersionIsPutShouldReplaceEntry() {
+        assertNewerVersionWins(hashCache());
+    }
+
+    @Test
+    public void hashCacheWhenUnversionedProductIsPutShouldReplaceEntry() {
+        assertUnversionedOverwrites(hashCache());
+    }
+
+    @Test
+    public void hashCacheWhenBatchHasStaleProductsShouldOnlyWriteNewerOnes() {
+        var cache = hashCache();
+        cache.putAll(List.of(product(1L, "Playstation 5", 499.99d, 2L), product(2L, "Xbox Series X", 499.99d, 2L)));
+        cache.putAll(List.of(product(1L, "Playstation 4", 299.99d, 1L), product(2L, "Xbox Series S", 299.99d, 3L)));
+        assertEquals("Playstation 5", read(cache, 1L).getName());
+        assertEquals("Xbox Series S", read(cache, 2L).getName());
+        assertEquals(1d, registry.counter("products.cache.stale-writes", "tier", "l2").count());
+    }
+
+    private void assertOlderVersionLoses(ProductCache cache) {
+        cache.put(product(1L, "Playstation 5 Slim", 449.99d, 2L));
+        cache.put(product(1L, "Playstation 5", 499.99d, 1L));
+        var cached = read(cache, 1L);
+        assertEquals("Playstation 5 Slim", cached.getName());
+        assertEquals(2L, cached.getVersion());
+        assertEquals(1d, registry.counter("products.cache.stale-writes", "tier", "l2").count());
+    }
+
+    private void assertNewerVersionWins(ProductCache cache) {
+        cache.put(product(1L, "Playstation 5", 499.99d, 1L));
+        cache.put(product(1L, "Playstation 5 Slim", 449.99d, 2L));
+        var cached = read(cache, 1L);
+        assertEquals("Playstation 5 Slim", cached.getName());
+        assertEquals(2L, cached.getVersion());
+        assertEquals(0d, registry.counter("products.cache.stale-writes", "tier", "l2").count());
+    }
+
+    private void assertUnversionedOverwrites(ProductCache cache) {
+        cache.put(product(1L, "Playstation 5 Slim", 449.99d, 2L));
+        cache.put(product(1L, "Playstation 5", 499.99d, null));
+        var cached = read(cache, 1L);
+        assertEquals("Playstation 5", cached.getName());
+        assertNull(cached.getVersion());
+        cache.put(product(1L, "Playstation 5 Pro", 699.99d, 1L));
+        assertEquals("Playstation 5 Pro", read(cache, 1L).getName());
+    }
+
+    private ProductCacheEntity read(ProductCache cache, long productId) {
+        var cached = cache.getAll(List.of(productId)).get(productId);
+        assertNotNull(cached);
+        return cached;
+    }
+
+    private ProductCache binaryCache() {
+        return new BinaryRedisProductCache(redisTemplate, "product:", Duration.ofMinutes(1), registry);
+    }
+
+    private ProductCache jsonCache() {
+        return new JsonRedisProductCache(redisTemplate, "product:", Duration.ofMinutes(1), new ObjectMapper(), registry);
+    }
+
+    private ProductCache hashCache() {
+        var converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        return new RedisProductCache(null, converter, redisTemplate, registry);
+    }
+
+    private static ProductCacheEntity product(long id, String name, Double price, Long version) {
+        var product = new ProductCacheEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.productsapi;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ProductRepositoryTests {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private long productId;
+
+    @BeforeEach
+    public void setUp() {
+        repository.deleteAll();
+        productId = repository.saveAndFlush(new ProductEntity(0L, "Xbox One", 299.99d)).getId();
+    }
+
+    @Test
+    public void updateWhenVersionIsNullShouldUpdateUnconditionallyAndBumpVersion() {
+        assertEquals(1, repository.update(productId, "Xbox One S", 349.99d, null));
+        assertEquals(Optional.of(new ProductDto(productId, "Xbox One S", 349.99d, 1L)), repository.findDtoById(productId));
+    }
+
+    @Test
+    public void updateWhenFieldIsNullShouldKeepItsValue() {
+        assertEquals(1, repository.update(productId, null, 349.99d, 0L));
+        assertEquals(1, repository.update(productId, "Xbox One S", null, 1L));
+        assertEquals(Optional.of(new ProductDto(productId, "Xbox One S", 349.99d, 2L)), repository.findDtoById(productId));
+    }
+
+    @Test
+    public void updateWhenVersionIsStaleShouldNotUpdate() {
+        assertEquals(0, repository.update(productId, "Xbox One S", 349.99d, 3L));
+        assertEquals(Optional.of(new ProductDto(productId, "Xbox One", 299.99d, 0L)), repository.findDtoById(productId));
+    }
+
+    @Container
+    static MySQLContainer mysql = new MySQLContainer("mysql:latest")
+            .withDatabaseName("products_db")
+            .withPassword("admin1234");
+
+    @DynamicPropertySource
+    static void setDatasourceProperties(DynamicPropertyRegistry propertyRegistry) {
+        propertyRegistry.add("spring.datasource.url", mysql::getJdbcUrl);
+        propertyRegistry.add("spring.datasource.password", mysql::getPassword);
+        propertyRegistry.add("spring.datasource.username", mysql::getUsername);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.productsapi;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.DatabaseProductSearch;
+import com.example.productsapi.services.InMemoryProductSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ProductSearchModesTests {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private DatabaseProductSearch database;
+    private InMemoryProductSearch memory;
+
+    @BeforeEach
+    public void setUp() {
+        repository.deleteAll();
+        repository.saveAllAndFlush(List.of(
+                new ProductEntity(0L, "Xbox Series X", 499.99d),
+                new ProductEntity(0L, "Xbox One", 299.99d),
+                new ProductEntity(0L, "PlayStation 5", 499.99d),
+                new ProductEntity(0L, "Playstation 4", 199.99d),
+                new ProductEntity(0L, "Switch", 299.99d),
+                new ProductEntity(0L, "100% Cotton_Shirt", 19.99d)));
+        database = new DatabaseProductSearch(repository);
+        memory = new InMemoryProductSearch(repository, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(memory, "compactThreshold", 1000);
+        ReflectionTestUtils.setField(memory, "rebuildInterval", Duration.ZERO);
+        assertTrue(memory.rebuild());
+    }
+
+    @Test
+    public void searchShouldReturnSameProductsInDatabaseAndMemoryModes() {
+        assertSameResults(null, null, null, 10);
+        assertSameResults(null, 250d, 500d, 10);
+        assertSameResults("playstation", null, null, 10);
+        assertSameResults("PLAYSTATION", null, null, 10);
+        assertEquals(2, memory.search("PLAYSTATION", null, null, 10).size());
+        assertSameResults("PlayStation", null, null, 10);
+        assertSameResults("xbox", null, 300d, 10);
+        assertSameResults("Xbox S", null, null, 10);
+        assertSameResults("100%", null, null, 10);
+        assertSameResults("100_", null, null, 10);
+        assertSameResults("Nintendo", null, null, 10);
+        assertSameResults(null, null, null, 2);
+    }
+
+    private void assertSameResults(String namePrefix, Double minPrice, Double maxPrice, int limit) {
+        var expected = ids(database.search(namePrefix, minPrice, maxPrice, limit));
+        assertEquals(expected, ids(memory.search(namePrefix, minPrice, maxPrice, limit)),
+                "namePrefix=" + namePrefix + ", minPrice=" + minPrice + ", maxPrice=" + maxPrice + ", limit=" + limit);
+    }
+
+    private static List<Long> ids(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).collect(Collectors.toList());
+    }
+
+    @Container
+    static MySQLContainer mysql = new MySQLContainer("mysql:latest")
+            .withDatabaseName("products_db")
+            .withPassword("admin1234");
+
+    @DynamicPropertySource
+    static void setDatasourceProperties(DynamicPropertyRegistry propertyRegistry) {
+        propertyRegistry.add("spring.datasource.url", mysql::getJdbcUrl);
+        propertyRegistry.add("spring.datasource.password", mysql::getPassword);
+        propertyRegistry.add("spring.datasource.username", mysql::getUsername);
+    }
+}
@@ -1,23 +1,46 @@
 package com.example.productsapi;
 
+import com.example.productsapi.cache.CachedProduct;
+import com.example.productsapi.cache.MissingProductCache;
 import com.example.productsapi.cache.ProductCacheEntity;
-import com.example.productsapi.cache.ProductCacheRepository;
+import com.example.productsapi.cache.SingleFlight;
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductJson;
 import com.example.productsapi.dtos.CreateProductDto;
 import com.example.productsapi.dtos.ProductDto;
 import com.example.productsapi.dtos.UpdateProductDto;
 import com.example.productsapi.entities.ProductEntity;
+import com.example.productsapi.exceptions.InvalidCursorException;
 import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.exceptions.VersionConflictException;
 import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.ProductSearch;
+import com.example.productsapi.services.ProductStatistics;
 import com.example.productsapi.services.ProductServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import java.util.Optional;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 
 @ExtendWith(MockitoExtension.class)
 public class ProductServiceTests {
@@ -25,7 +48,23 @@ public class ProductServiceTests {
     @Mock
     private ProductRepository repository;
     @Mock
-    private ProductCacheRepository cacheRepository;
+    private ProductCache cache;
+    @Mock
+    private MissingProductCache missing;
+    @Mock
+    private ApplicationEventPublisher events;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private SingleFlight<Long, Optional<ProductEntity>> loads = new SingleFlight<>("products.cache.loads", new SimpleMeterRegistry());
+    @Mock
+    private ProductSearch search;
+    @Mock
+    private ProductStatistics statistics;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
     @InjectMocks
     private ProductServiceImpl service;
 
@@ -39,49 +78,78 @@ public class ProductServiceTests {
         cacheEntity.setName("Playstation 4");
         cacheEntity.setPrice(500.99d);
         when(repository.saveAndFlush(any(ProductEntity.class))).thenReturn(expectedEntity);
-        when(cacheRepository.save(any(ProductCacheEntity.class))).thenReturn(any(ProductCacheEntity.class));
         var result = service.create(createDto);
         assertEquals(expectedDto, result);
-        verify(cacheRepository).save(any(ProductCacheEntity.class));
+        verify(cache).put(any(ProductCacheEntity.class));
+        verify(statistics).put(Map.of(1L, 500.99d));
     }
 
     @Test
     public void productServiceUpdateWhenProductNotExistsShouldThrowException() {
         var dto = new UpdateProductDto(1L, "Playstation 4", 499.99d);
-        when(repository.findById(1L)).thenReturn(Optional.empty());
+        when(repository.update(1L, "Playstation 4", 499.99d, null)).thenReturn(0);
         assertThrows(RecordNotFoundException.class, () -> service.update(dto));
+        verify(repository, never()).existsById(anyLong());
+        verify(events, never()).publishEvent(any(Object.class));
     }
 
     @Test
-    public void productServiceUpdateWhenProductExistsShouldReturnDto() {
+    public void productServiceUpdateWhenProductExistsShouldUpdateUnconditionallyAndPutVersionReadBackInCache() {
         var updateDto = new UpdateProductDto(1L, "Playstation 4 Pro", 599.99d);
-        var expectedDto = new ProductDto(1L, "Playstation 4 Pro", 599.99d);
-        var entity = new ProductEntity(1L, "Playstation 4", 499.99d);
-        var result = new ProductEntity(1L, "Playstation 4 Pro", 599.99d);
-        when(repository.findById(1L)).thenReturn(Optional.of(entity));
-        when(repository.save(entity)).thenReturn(result);
-        when(cacheRepository.save(any(ProductCacheEntity.class))).thenReturn(any(ProductCacheEntity.class));
+        when(repository.update(1L, "Playstation 4 Pro", 599.99d, null)).thenReturn(1);
+        when(repository.findDtoById(1L)).thenReturn(Optional.of(new ProductDto(1L, "Playstation 4 Pro", 599.99d, 5L)));
         var resultDto = service.update(updateDto);
-        assertEquals(expectedDto, resultDto);
-        verify(cacheRepository).save(any(ProductCacheEntity.class));
+        assertEquals(new ProductDto(1L, "Playstation 4 Pro", 599.99d, 5L), resultDto);
+        verify(repository, never()).findById(anyLong());
+        verify(cache).put(argThat(p -> p.getId() == 1L && Long.valueOf(5L).equals(p.getVersion())));
+        verify(cache, never()).evict(anyLong());
+    }
+
+    @Test
+    public void productServiceUpdateWhenVersionIsGivenShouldPutNextVersionInCache() {
+        when(repository.update(1L, "Playstation 4 Pro", 599.99d, 3L)).thenReturn(1);
+        var result = service.update(new UpdateProductDto(1L, "Playstation 4 Pro", 599.99d, 3L));
+        assertEquals(new ProductDto(1L, "Playstation 4 Pro", 599.99d, 4L), result);
+        verify(cache).put(argThat(p -> p.getId() == 1L && "Playstation 4 Pro".equals(p.getName())
+                && Long.valueOf(4L).equals(p.getVersion())));
+        verify(repository, never()).findDtoById(anyLong());
+    }
+
+    @Test
+    public void productServicePatchShouldUpdateGivenFieldsAndPutMergedRow() {
+        when(repository.update(1L, null, 549.99d, 3L)).thenReturn(1);
+        when(repository.findDtoById(1L)).thenReturn(Optional.of(new ProductDto(1L, "Xbox One", 549.99d, 4L)));
+        assertEquals(4L, service.patch(new UpdateProductDto(1L, null, 549.99d, 3L)));
+        verify(statistics).put(Map.of(1L, 549.99d));
+        verify(cache).put(argThat(p -> "Xbox One".equals(p.getName()) && Long.valueOf(4L).equals(p.getVersion())));
+        verify(cache, never()).evict(anyLong());
+    }
+
+    @Test
+    public void productServicePatchWhenProductNotExistsShouldThrowException() {
+        when(repository.update(1L, "Xbox One", null, 3L)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(false);
+        assertThrows(RecordNotFoundException.class, () -> service.patch(new UpdateProductDto(1L, "Xbox One", null, 3L)));
+        verify(cache, never()).evict(anyLong());
+        verifyNoInteractions(statistics);
     }
 
     @Test
     public void productServiceDeleteWhenProductNotExistsShouldThrowException() {
         var productId = 1L;
-        when(repository.existsById(productId)).thenReturn(false);
+        when(repository.deleteByIdReturningCount(productId)).thenReturn(0);
         assertThrows(RecordNotFoundException.class, () -> service.delete(productId));
+        verify(cache, never()).evict(productId);
     }
 
     @Test
     public void productServiceDeleteWhenProductExistsShouldDelete() {
         var productId = 1L;
-        when(repository.existsById(productId)).thenReturn(true);
-        doNothing().when(repository).deleteById(productId);
-        doNothing().when(cacheRepository).deleteById(productId);
+        when(repository.deleteByIdReturningCount(productId)).thenReturn(1);
         service.delete(productId);
-        verify(repository, times(1)).deleteById(productId);
-        verify(cacheRepository, times(1)).deleteById(productId);
+        verify(statistics).remove(List.of(productId));
+        verify(repository, never()).existsById(productId);
+        verify(cache, times(1)).evict(productId);
     }
 
     @Test
@@ -93,8 +161,7 @@ public class ProductServiceTests {
         productCache.setPrice(399.99d);
         var cacheOpt = Optional.of(productCache);
         var expectedOpt = Optional.of(new ProductDto(1L,"Playstation 4", 399.99d));
-        when(cacheRepository.existsById(productId)).thenReturn(true);
-        when(cacheRepository.findById(productId)).thenReturn(cacheOpt);
+        when(cache.get(productId)).thenReturn(cacheOpt);
         var resultOpt = service.getById(productId);
         assertEquals(expectedOpt, resultOpt);
     }
@@ -104,21 +171,219 @@ public class ProductServiceTests {
         var productId = 1L;
         var entity = Optional.of(new ProductEntity(1L, "Playstation 4", 399.99d));
         var expectedOpt = Optional.of(new ProductDto(1L, "Playstation 4", 399.99d));
-        when(cacheRepository.existsById(productId)).thenReturn(false);
+        when(cache.get(productId)).thenReturn(Optional.empty());
         when(repository.findById(productId)).thenReturn(entity);
-        when(cacheRepository.save(any(ProductCacheEntity.class))).thenReturn(any(ProductCacheEntity.class));
         var resultOpt = service.getById(productId);
         assertEquals(expectedOpt, resultOpt);
-        verify(cacheRepository).save(any(ProductCacheEntity.class));
+        verify(cache).put(any(ProductCacheEntity.class));
     }
 
     @Test
     public void productServiceGetByIdWhenProductIsNotInCacheAndNotExistsShouldReturnEmptyOptional() {
         var productId = 1L;
-        when(cacheRepository.existsById(productId)).thenReturn(false);
+        when(cache.get(productId)).thenReturn(Optional.empty());
         when(repository.findById(productId)).thenReturn(Optional.empty());
         var result = service.getById(productId);
         assertTrue(result.isEmpty());
+        verify(missing).markMissing(productId);
+    }
+
+    @Test
+    public void productServiceGetByIdPreferringJsonWhenJsonIsCachedShouldReturnStoredBytes() {
+        var json = new ProductJson(2L, "{}".getBytes(StandardCharsets.UTF_8));
+        when(cache.getPreferringJson(1L)).thenReturn(Optional.of(CachedProduct.of(json)));
+        var result = service.getById(1L, j -> j, p -> fail("should not build a DTO"));
+        assertSame(json, result.orElseThrow());
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void productServiceGetByIdPreferringJsonWhenCacheMissesShouldLoadWithoutSecondCacheRead() {
+        when(cache.getPreferringJson(1L)).thenReturn(Optional.empty());
+        when(repository.findById(1L)).thenReturn(Optional.of(new ProductEntity(1L, "Playstation 4", 399.99d)));
+        var result = service.getById(1L, j -> fail("nothing was cached"), p -> p);
+        assertEquals(Optional.of(new ProductDto(1L, "Playstation 4", 399.99d)), result);
+        verify(cache, never()).get(anyLong());
+        verify(cache).put(any(ProductCacheEntity.class));
+    }
+
+    @Test
+    public void productServiceGetByIdWhenProductIsKnownMissingShouldNotQueryRepository() {
+        var productId = 1L;
+        when(cache.get(productId)).thenReturn(Optional.empty());
+        when(missing.isKnownMissing(productId)).thenReturn(true);
+        var result = service.getById(productId);
+        assertTrue(result.isEmpty());
+        verify(repository, never()).findById(anyLong());
+        verify(missing, never()).markMissing(anyLong());
     }
 
+    @Test
+    public void productServiceGetByIdShouldRecordTimerPerPath() {
+        var cached = new ProductCacheEntity();
+        cached.setId(1L);
+        cached.setName("Playstation 4");
+        cached.setPrice(399.99d);
+        when(cache.get(1L)).thenReturn(Optional.of(cached));
+        when(cache.get(2L)).thenReturn(Optional.empty());
+        when(cache.get(3L)).thenReturn(Optional.empty());
+        when(repository.findById(2L)).thenReturn(Optional.of(new ProductEntity(2L, "Xbox One", 299.99d)));
+        when(repository.findById(3L)).thenReturn(Optional.empty());
+        service.getById(1L);
+        service.getById(2L);
+        service.getById(3L);
+        for (var result : List.of("hit", "miss", "not_found"))
+            assertEquals(1, registry.get("products.service.requests")
+                    .tag("operation", "getById")
+                    .tag("result", result)
+                    .timer()
+                    .count());
+    }
+
+    @Test
+    public void productServiceUpdateWhenVersionIsStaleShouldThrowVersionConflict() {
+        when(repository.update(1L, "Xbox One X", 499.99d, 4L)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+        var dto = new UpdateProductDto(1L, "Xbox One X", 499.99d, 4L);
+        assertThrows(VersionConflictException.class, () -> service.update(dto));
+        verify(cache, never()).put(any(ProductCacheEntity.class));
+        verify(cache, never()).evict(anyLong());
+    }
+
+    @Test
+    public void productServicePatchWhenVersionIsStaleShouldThrowVersionConflict() {
+        when(repository.update(1L, null, 549.99d, 3L)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+        assertThrows(VersionConflictException.class, () -> service.patch(new UpdateProductDto(1L, null, 549.99d, 3L)));
+        verify(repository, never()).findDtoById(anyLong());
+        verify(cache, never()).put(any(ProductCacheEntity.class));
+    }
+
+    @Test
+    public void productServiceUpdateWhenNotExistsShouldRecordNotFound() {
+        when(repository.update(1L, "Xbox One", 299.99d, null)).thenReturn(0);
+        assertThrows(RecordNotFoundException.class, () -> service.update(new UpdateProductDto(1L, "Xbox One", 299.99d)));
+        assertEquals(1, registry.get("products.service.requests")
+                .tag("operation", "update")
+                .tag("result", "not_found")
+                .timer()
+                .count());
+    }
+
+    @Test
+    public void productServiceGetPageWhenMoreRowsExistShouldReturnNextCursor() {
+        var rows = List.of(
+                new ProductEntity(1L, "Playstation 4", 399.99d),
+                new ProductEntity(2L, "Xbox One", 299.99d),
+                new ProductEntity(3L, "Nintendo Switch", 299.99d));
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3))).thenReturn(rows);
+        var page = service.getPage(null, 2);
+        assertEquals(List.of(new ProductDto(1L, "Playstation 4", 399.99d), new ProductDto(2L, "Xbox One", 299.99d)), page.getItems());
+        assertEquals("AAAAAAAAAAI", page.getNextCursor());
+    }
+
+    @Test
+    public void productServiceGetPageWhenCursorIsGivenShouldSeekAfterCursor() {
+        var rows = List.of(new ProductEntity(3L, "Nintendo Switch", 299.99d));
+        when(repository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 3))).thenReturn(rows);
+        var page = service.getPage("AAAAAAAAAAI", 2);
+        assertEquals(List.of(new ProductDto(3L, "Nintendo Switch", 299.99d)), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void productServiceGetPageWhenCursorIsInvalidShouldThrowException() {
+        assertThrows(InvalidCursorException.class, () -> service.getPage("not-a-cursor!", 2));
+    }
+
+    @Test
+    public void productServiceExportAllShouldDetachEachRowAndEmitDto() {
+        var first = new ProductEntity(1L, "Playstation 4", 399.99d);
+        var second = new ProductEntity(2L, "Xbox One", 299.99d);
+        when(repository.streamAll()).thenReturn(Stream.of(first, second));
+        var exported = new ArrayList<ProductDto>();
+        service.exportAll(exported::add);
+        assertEquals(List.of(new ProductDto(1L, "Playstation 4", 399.99d), new ProductDto(2L, "Xbox One", 299.99d)), exported);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void productServiceCreateAllShouldSaveAllAndPutThemInCacheInOneCall() {
+        var dtos = List.of(new CreateProductDto("Playstation 4", 399.99d), new CreateProductDto("Xbox One", 299.99d));
+        when(repository.save(any(ProductEntity.class)))
+                .thenReturn(new ProductEntity(1L, "Playstation 4", 399.99d))
+                .thenReturn(new ProductEntity(2L, "Xbox One", 299.99d));
+        var result = service.createAll(dtos);
+        assertEquals(List.of(new ProductDto(1L, "Playstation 4", 399.99d), new ProductDto(2L, "Xbox One", 299.99d)), result);
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(cache, times(1)).putAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        verify(statistics).put(Map.of(1L, 399.99d, 2L, 299.99d));
+        verify(entityManager).flush();
+    }
+
+    @Test
+    public void productServiceUpdateAllWhenAProductNotExistsShouldThrowException() {
+        var dtos = List.of(new UpdateProductDto(1L, "Playstation 4", 399.99d), new UpdateProductDto(2L, "Xbox One", 299.99d));
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(new ProductEntity(1L, "Playstation 3", 199.99d)));
+        assertThrows(RecordNotFoundException.class, () -> service.updateAll(dtos));
+        verify(cache, never()).putAll(any());
+    }
+
+    @Test
+    public void productServiceDeleteAllWhenAllProductsExistShouldEvictThemFromCache() {
+        when(repository.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+        service.deleteAll(List.of(1L, 2L, 2L));
+        verify(cache).evictAll(List.of(1L, 2L));
+        verify(statistics).remove(List.of(1L, 2L));
+    }
+
+    @Test
+    public void productServiceDeleteAllWhenNoIdsAreGivenShouldNotPublishAChange() {
+        service.deleteAll(List.of());
+        verify(events, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void productServiceDeleteAllWhenAProductNotExistsShouldThrowException() {
+        when(repository.deleteByIdIn(List.of(1L, 2L))).thenReturn(1);
+        assertThrows(RecordNotFoundException.class, () -> service.deleteAll(List.of(1L, 2L)));
+        verify(cache, never()).evictAll(any());
+    }
+
+    @Test
+    public void productServiceGetByIdsShouldLoadMissesInOneQueryAndKeepRequestedOrder() {
+        var cached = new ProductCacheEntity();
+        cached.setId(2L);
+        cached.setName("Xbox One");
+        cached.setPrice(299.99d);
+        when(cache.getAll(new LinkedHashSet<>(List.of(3L, 2L, 1L, 4L)))).thenReturn(Map.of(2L, cached));
+        when(repository.findAllById(List.of(3L, 1L, 4L))).thenReturn(List.of(
+                new ProductEntity(1L, "Playstation 4", 399.99d),
+                new ProductEntity(3L, "Nintendo Switch", 299.99d)));
+        var result = service.getByIds(List.of(3L, 2L, 1L, 4L, 2L));
+        assertEquals(List.of(
+                new ProductDto(3L, "Nintendo Switch", 299.99d),
+                new ProductDto(2L, "Xbox One", 299.99d),
+                new ProductDto(1L, "Playstation 4", 399.99d)), result);
+        verify(cache, times(1)).putAll(any());
+        verify(missing).markAllMissing(List.of(4L));
+        verify(missing, never()).markMissing(anyLong());
+    }
+
+
+    @Test
+    public void productServiceSearchShouldClampLimitAndDropEmptyPrefix() {
+        var expected = List.of(new ProductDto(1L, "Xbox One", 299.99d));
+        when(search.search(null, 100d, null, 1000)).thenReturn(expected);
+        assertEquals(expected, service.search("", 100d, null, 5000));
+    }
+
+    @Test
+    public void productServiceSearchWhenPriceRangeIsInvertedShouldReturnEmptyList() {
+        assertTrue(service.search("Xbox", 500d, 100d, 10).isEmpty());
+        verifyNoInteractions(search);
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.productsapi;
+
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.snapshot.ProductSnapshotFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSnapshotFileTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void snapshotShouldRoundTripProductsAndHeader() throws IOException {
+        var products = List.of(
+                new ProductDto(1L, "Playstation 5", 499.99d, 3L),
+                new ProductDto(2L, "Nintendo Switch – OLED", 349.0d),
+                new ProductDto(3L, "", 0d, 0L));
+        var watermark = Instant.ofEpochMilli(1_700_000_000_000L);
+        var path = directory.resolve("products.snapshot");
+
+        var written = ProductSnapshotFile.write(path, watermark, products.iterator());
+        var opened = ProductSnapshotFile.open(path);
+        var read = new ArrayList<ProductDto>();
+        opened.forEach(read::add);
+
+        assertEquals(3, written.getCount());
+        assertEquals(3, opened.getCount());
+        assertEquals(watermark, opened.getWatermark());
+        assertEquals(written.getCreatedAt(), opened.getCreatedAt());
+        assertEquals(products, read);
+    }
+
+    @Test
+    public void snapshotWhenLargerThanOneBufferShouldReadEveryProduct() throws IOException {
+        var products = LongStream.rangeClosed(1, 50_000)
+                .mapToObj(id -> new ProductDto(id, "Product " + id, id * 0.25d, id % 7))
+                .collect(Collectors.toList());
+        var path = directory.resolve("products.snapshot");
+        ProductSnapshotFile.write(path, Instant.now(), products.iterator());
+
+        var read = new ArrayList<ProductDto>(products.size());
+        ProductSnapshotFile.open(path).forEach(read::add);
+
+        assertEquals(products, read);
+        assertTrue(Files.size(path) < products.size() * 20L, "snapshot should be compressed");
+    }
+
+    @Test
+    public void snapshotWhenTruncatedShouldFail() throws IOException {
+        var path = directory.resolve("products.snapshot");
+        var products = LongStream.rangeClosed(1, 1_000)
+                .mapToObj(id -> new ProductDto(id, "Product " + id, 1d, 1L))
+                .collect(Collectors.toList());
+        ProductSnapshotFile.write(path, Instant.now(), products.iterator());
+        var bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        var snapshot = ProductSnapshotFile.open(path);
+        assertThrows(IOException.class, () -> snapshot.forEach(p -> { }));
+    }
+
+    @Test
+    public void openWhenFileIsNotASnapshotShouldFail() throws IOException {
+        var path = Files.write(directory.resolve("other.snapshot"), new byte[64]);
+        assertThrows(IOException.class, () -> ProductSnapshotFile.open(path));
+    }
+}
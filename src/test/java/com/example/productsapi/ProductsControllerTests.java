@@ -1,26 +1,51 @@
 package com.example.productsapi;
 
+import com.example.productsapi.cache.ProductJson;
+import com.example.productsapi.dtos.CreateProductDto;
 import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.PriceBucketDto;
+import com.example.productsapi.dtos.ProductPageDto;
+import com.example.productsapi.dtos.ProductStatisticsDto;
 import com.example.productsapi.dtos.UpdateProductDto;
+import com.example.productsapi.exceptions.InvalidCursorException;
 import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.exceptions.VersionConflictException;
 import com.example.productsapi.services.ProductService;
+import com.example.productsapi.config.MessageConvertersConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
+@Import(MessageConvertersConfig.class)
 public class ProductsControllerTests {
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -36,7 +61,7 @@ public class ProductsControllerTests {
         long productId = 1;
         var product = new ProductDto(productId, "Xbox Series X", 1000.25d);
         var expectedOptional = Optional.of(product);
-        Mockito.when(service.getById(productId)).thenReturn(expectedOptional);
+        givenProduct(productId, expectedOptional);
 
         var request = MockMvcRequestBuilders
                 .get("/products/" + productId)
@@ -57,7 +82,7 @@ public class ProductsControllerTests {
         long productId = 1;
         Optional<ProductDto> expectedOptional = Optional.empty();
 
-        Mockito.when(service.getById(productId)).thenReturn(expectedOptional);
+        givenProduct(productId, expectedOptional);
 
         var request = MockMvcRequestBuilders
                 .get("/products/" + productId)
@@ -113,7 +138,7 @@ public class ProductsControllerTests {
                 "Xbox One",
                 1000.50d);
 
-        Mockito.when(service.update(updateProductDto)).thenReturn(dto);
+        Mockito.when(service.update(Mockito.any(UpdateProductDto.class))).thenReturn(dto);
 
         var request = MockMvcRequestBuilders
                 .put("/products/" + productId)
@@ -170,21 +195,369 @@ public class ProductsControllerTests {
 
     }
 
+    @Test
+    public void productsUpdateWhenFieldIsMissingStatusShouldBeBadRequest() throws Exception {
+
+        var request = MockMvcRequestBuilders
+                .put("/products/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new UpdateProductDto(1, "Xbox One", null)));
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(service, Mockito.never()).update(Mockito.any(UpdateProductDto.class));
+
+    }
+
     @Test
     public void productsGetAllStatusShouldBeOk() throws Exception {
 
         var products = List.of(new ProductDto(1, "Xbox One", 7000d),
                 new ProductDto(2, "PlayStation 4", 8000d));
 
-        Mockito.when(service.getAll()).thenReturn(products);
+        Mockito.when(service.getPage(null, 100)).thenReturn(new ProductPageDto(products, "AAAAAAAAAAI"));
+
+        var request = MockMvcRequestBuilders
+                .get("/products/")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.notNullValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor", Matchers.is("AAAAAAAAAAI")));
+    }
+
+    @Test
+    public void productsGetAllWhenCursorIsInvalidStatusShouldBeBadRequest() throws Exception {
+
+        Mockito.when(service.getPage("not-a-cursor", 100)).thenThrow(InvalidCursorException.class);
 
         var request = MockMvcRequestBuilders
                 .get("/products/")
+                .param("cursor", "not-a-cursor")
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON);
 
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void productsExportShouldStreamNewlineDelimitedJson() throws Exception {
+
+        Mockito.doAnswer(invocation -> {
+            var consumer = (Consumer<ProductDto>) invocation.getArgument(0);
+            consumer.accept(new ProductDto(1, "Xbox One", 7000d));
+            consumer.accept(new ProductDto(2, "PlayStation 4", 8000d));
+            return null;
+        }).when(service).exportAll(Mockito.any());
+
+        var request = MockMvcRequestBuilders
+                .get("/products/")
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        var result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"Xbox One\",\"price\":7000.0}\n" +
+                        "{\"id\":2,\"name\":\"PlayStation 4\",\"price\":8000.0}\n"));
+    }
+
+    @Test
+    public void productsCreateAllStatusShouldBeOk() throws Exception {
+
+        var dtos = List.of(new CreateProductDto("Xbox One", 7000d), new CreateProductDto("PlayStation 4", 8000d));
+        var products = List.of(new ProductDto(1, "Xbox One", 7000d), new ProductDto(2, "PlayStation 4", 8000d));
+
+        Mockito.when(service.createAll(Mockito.anyList())).thenReturn(products);
+
+        var request = MockMvcRequestBuilders
+                .post("/products/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(dtos));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id", Matchers.is(2)));
+    }
+
+    @Test
+    public void productsDeleteAllWhenAProductNotExistsStatusShouldBeNotFound() throws Exception {
+
+        Mockito.doThrow(RecordNotFoundException.class).when(service).deleteAll(List.of(1L, 2L));
+
+        var request = MockMvcRequestBuilders
+                .delete("/products/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]");
+
+        mockMvc.perform(request)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void productsGetByIdsWhenTooManyIdsStatusShouldBeBadRequest() throws Exception {
+
+        var ids = LongStream.rangeClosed(1, 1001)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        var request = MockMvcRequestBuilders
+                .get("/products")
+                .param("ids", ids)
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(service, Mockito.never()).getByIds(Mockito.anyList());
+    }
+
+    @Test
+    public void productsGetByIdsStatusShouldBeOk() throws Exception {
+
+        var products = List.of(new ProductDto(2, "PlayStation 4", 8000d), new ProductDto(1, "Xbox One", 7000d));
+
+        Mockito.when(service.getByIds(List.of(2L, 1L))).thenReturn(products);
+
+        var request = MockMvcRequestBuilders
+                .get("/products")
+                .param("ids", "2,1")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(2)));
+    }
+
+    @Test
+    public void productsGetByIdWhenETagMatchesStatusShouldBeNotModified() throws Exception {
+        var product = new ProductDto(1, "Xbox Series X", 1000.25d, 3L);
+        givenProduct(1, Optional.of(product));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void productsUpdateWithIfMatchShouldPassVersionToService() throws Exception {
+        var updateProductDto = new UpdateProductDto(1, "Xbox One", 1000.50d);
+        Mockito.when(service.update(Mockito.argThat(dto -> Long.valueOf(3).equals(dto.getVersion()))))
+                .thenReturn(new ProductDto(1, "Xbox One", 1000.50d, 4L));
+
+        var request = MockMvcRequestBuilders
+                .put("/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(mapper.writeValueAsString(updateProductDto));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    public void productsGetStatisticsShouldReturnAggregates() throws Exception {
+        var histogram = List.of(new PriceBucketDto(null, 100d, 1), new PriceBucketDto(100d, null, 2));
+        Mockito.when(service.getStatistics()).thenReturn(new ProductStatisticsDto(3, 50d, 700d, 350d, histogram));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/statistics").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.count", Matchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.averagePrice", Matchers.is(350d)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.histogram[1].from", Matchers.is(100d)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.histogram[1].count", Matchers.is(2)));
+    }
+
+    @Test
+    public void productsPatchWithIfMatchShouldReturnNoContentAndNewETag() throws Exception {
+        Mockito.when(service.patch(Mockito.argThat(dto -> dto.getId() == 1 && dto.getName() == null
+                && Double.valueOf(899.99d).equals(dto.getPrice()) && Long.valueOf(3).equals(dto.getVersion()))))
+                .thenReturn(4L);
+
+        var request = MockMvcRequestBuilders
+                .patch("/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content("{\"price\":899.99}");
+
+        mockMvc.perform(request)
+                .andExpect(status().isNoContent())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    public void productsPatchWhenBodyIsEmptyStatusShouldBeBadRequest() throws Exception {
+        var request = MockMvcRequestBuilders
+                .patch("/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}");
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void productsPatchWhenProductNotExistsStatusShouldBeNotFound() throws Exception {
+        Mockito.when(service.patch(Mockito.any(UpdateProductDto.class))).thenThrow(RecordNotFoundException.class);
+
+        var request = MockMvcRequestBuilders
+                .patch("/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Xbox One\"}");
+
+        mockMvc.perform(request)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void productsUpdateWhenVersionIsStaleStatusShouldBePreconditionFailed() throws Exception {
+        var updateProductDto = new UpdateProductDto(1, "Xbox One", 1000.50d);
+        Mockito.when(service.update(Mockito.any(UpdateProductDto.class))).thenThrow(VersionConflictException.class);
+
+        var request = MockMvcRequestBuilders
+                .put("/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .content(mapper.writeValueAsString(updateProductDto));
+
+        mockMvc.perform(request)
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void productsGetByIdWhenJsonIsCachedShouldWriteCachedBytes() throws Exception {
+        var json = "{\"id\":1,\"name\":\"Xbox One\",\"price\":7000.0,\"version\":2}";
+        var cached = new ProductJson(2L, json.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(service.getById(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> Optional.of(invocation.<Function<ProductJson, ?>>getArgument(1).apply(cached)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(json))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""));
+        Mockito.verify(service, Mockito.never()).getById(1);
+    }
+
+    private void givenProduct(long productId, Optional<ProductDto> product) {
+        Mockito.when(service.getById(productId)).thenReturn(product);
+        Mockito.when(service.getById(Mockito.eq(productId), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> product.map(invocation.<Function<ProductDto, ?>>getArgument(2)));
+    }
+
+    @Test
+    public void productsSearchShouldPassFiltersToService() throws Exception {
+        var products = List.of(new ProductDto(2L, "Xbox One", 299.99d), new ProductDto(1L, "Xbox Series X", 499.99d));
+        Mockito.when(service.search("Xbox", 100d, 500d, 10)).thenReturn(products);
+
+        var request = MockMvcRequestBuilders
+                .get("/products/search?namePrefix=Xbox&minPrice=100&maxPrice=500&limit=10")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id", Matchers.is(1)));
+    }
+
+    @Test
+    public void productsCreateWithCborShouldReadAndWriteCbor() throws Exception {
+        var cbor = new CBORMapper();
+        var product = new ProductDto(1, "Xbox One", 7000d);
+        Mockito.when(service.create(Mockito.any())).thenReturn(product);
+
+        var request = MockMvcRequestBuilders
+                .post("/products")
+                .accept(CBOR)
+                .contentType(CBOR)
+                .content(cbor.writeValueAsBytes(new CreateProductDto("Xbox One", 7000d)));
+
+        var response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Assertions.assertEquals(product, cbor.readValue(response, ProductDto.class));
+        Mockito.verify(service).create(Mockito.argThat(dto -> "Xbox One".equals(dto.getName()) && dto.getPrice() == 7000d));
+    }
+
+    @Test
+    public void productsGetByIdsWithSmileShouldWriteSmile() throws Exception {
+        var products = List.of(new ProductDto(2, "PlayStation 4", 8000d), new ProductDto(1, "Xbox One", 7000d));
+        Mockito.when(service.getByIds(List.of(2L, 1L))).thenReturn(products);
+
+        var request = MockMvcRequestBuilders
+                .get("/products")
+                .param("ids", "2,1")
+                .accept(SMILE);
+
+        var response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var smile = new SmileMapper();
+        Assertions.assertEquals(products, smile.readValue(response, smile.getTypeFactory().constructCollectionType(List.class, ProductDto.class)));
+    }
+
+    @Test
+    public void productsGetByIdWhenCborIsPreferredShouldNotWriteCachedJson() throws Exception {
+        var product = new ProductDto(1, "Xbox One", 7000d);
+        product.setVersion(2L);
+        Mockito.when(service.getById(1)).thenReturn(Optional.of(product));
+
+        var request = MockMvcRequestBuilders
+                .get("/products/1")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor");
+
+        var response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2-cbor\""))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Assertions.assertEquals(product, new CBORMapper().readValue(response, ProductDto.class));
+        Mockito.verify(service, Mockito.never()).getById(Mockito.eq(1L), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void productsUpdateWithSmileShouldTagAndAcceptTheSmileETag() throws Exception {
+        Mockito.when(service.update(Mockito.argThat(dto -> Long.valueOf(3).equals(dto.getVersion()))))
+                .thenReturn(new ProductDto(1, "Xbox One", 1000.50d, 4L));
+
+        var request = MockMvcRequestBuilders
+                .put("/products/1")
+                .accept(SMILE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3-smile\"")
+                .content(mapper.writeValueAsString(new UpdateProductDto(1, "Xbox One", 1000.50d)));
+
         mockMvc.perform(request)
                 .andExpect(status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.notNullValue()));
+                .andExpect(content().contentType(SMILE))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4-smile\""));
     }
 }
@@ -0,0 +1,125 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.dtos.CreateProductDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.dtos.UpdateProductDto;
+import com.example.productsapi.exceptions.RecordNotFoundException;
+import com.example.productsapi.reactive.ProductHandler;
+import com.example.productsapi.reactive.ProductRow;
+import com.example.productsapi.reactive.ReactiveIdAllocator;
+import com.example.productsapi.reactive.ReactiveProductCache;
+import com.example.productsapi.reactive.ReactiveProductRepository;
+import com.example.productsapi.reactive.ReactiveProductService;
+import com.example.productsapi.reactive.ReactiveProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveProductServiceTests {
+
+    @Mock
+    private ReactiveProductRepository repository;
+    @Mock
+    private ReactiveProductCache cache;
+    @Mock
+    private ReactiveIdAllocator ids;
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+    @Mock
+    private TransactionalOperator transactions;
+
+    private ReactiveProductServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new ReactiveProductServiceImpl(repository, cache, ids, redisTemplate, transactions, "products:changes");
+    }
+
+    @Test
+    public void reactiveProductServiceWhenCreateShouldInsertWithAllocatedId() {
+        when(ids.nextId()).thenReturn(Mono.just(51L));
+        when(repository.save(any(ProductRow.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(cache.put(any(ProductCacheEntity.class))).thenReturn(Mono.empty());
+        when(redisTemplate.convertAndSend(eq("products:changes"), anyString())).thenReturn(Mono.just(1L));
+        StepVerifier.create(service.create(new CreateProductDto("Playstation 4", 500.99d)))
+                .expectNext(new ProductDto(51, "Playstation 4", 500.99d))
+                .verifyComplete();
+        verify(repository).save(argThat(ProductRow::isNew));
+    }
+
+    @Test
+    public void reactiveProductServiceWhenCachedShouldNotQueryRepository() {
+        var cached = new ProductCacheEntity();
+        cached.setId(1);
+        cached.setName("Playstation 4");
+        cached.setPrice(500.99d);
+        when(cache.get(1L)).thenReturn(Mono.just(cached));
+        StepVerifier.create(service.getById(1L))
+                .expectNext(new ProductDto(1, "Playstation 4", 500.99d))
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void reactiveProductServiceWhenUpdateMissingShouldFail() {
+        when(repository.findById(5L)).thenReturn(Mono.empty());
+        StepVerifier.create(service.update(new UpdateProductDto(5, "Xbox", 10d)))
+                .expectError(RecordNotFoundException.class)
+                .verify();
+        verify(cache, never()).put(any());
+    }
+
+    @Test
+    public void reactiveProductServiceWhenMorePagesShouldReturnCursor() {
+        var rows = Flux.range(1, 3).map(i -> {
+            var row = new ProductRow();
+            row.setId((long) i);
+            row.setName("Product " + i);
+            row.setPrice(1d);
+            return row;
+        });
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3))).thenReturn(rows);
+        StepVerifier.create(service.getPage(null, 2))
+                .expectNextMatches(page -> page.getItems().size() == 2 && page.getNextCursor() != null)
+                .verifyComplete();
+    }
+
+    @Test
+    public void reactiveProductHandlerWhenIdIsMalformedShouldRespondBadRequest() {
+        var handler = new ProductHandler(mock(ReactiveProductService.class));
+        var request = MockServerRequest.builder().queryParam("ids", "1,two").build();
+        StepVerifier.create(handler.getByIds(request))
+                .expectNextMatches(response -> response.statusCode() == HttpStatus.BAD_REQUEST)
+                .verifyComplete();
+    }
+
+    @Test
+    public void reactiveProductHandlerWhenTooManyIdsShouldRespondBadRequest() {
+        var service = mock(ReactiveProductService.class);
+        var handler = new ProductHandler(service);
+        var ids = LongStream.rangeClosed(1, 1001).mapToObj(Long::toString).collect(Collectors.joining(","));
+        var request = MockServerRequest.builder().queryParam("ids", ids).build();
+        StepVerifier.create(handler.getByIds(request))
+                .expectNextMatches(response -> response.statusCode() == HttpStatus.BAD_REQUEST)
+                .verifyComplete();
+        verifyNoInteractions(service);
+    }
+}
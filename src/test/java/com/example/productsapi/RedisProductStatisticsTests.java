@@ -0,0 +1,178 @@
+package com.example.productsapi;
+
+import com.example.productsapi.dtos.PriceBucketDto;
+import com.example.productsapi.dtos.PriceSummaryDto;
+import com.example.productsapi.dtos.ProductDto;
+import com.example.productsapi.repositories.ProductRepository;
+import com.example.productsapi.services.RedisProductStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Testcontainers
+@ExtendWith(MockitoExtension.class)
+public class RedisProductStatisticsTests {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:latest")
+            .withExposedPorts(6379);
+
+    private static JedisConnectionFactory connectionFactory;
+
+    @Mock
+    private ProductRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry registry;
+    private RedisProductStatistics statistics;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getFirstMappedPort()));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        registry = new SimpleMeterRegistry();
+        statistics = new RedisProductStatistics(redisTemplate, repository, transactionManager, registry);
+        ReflectionTestUtils.setField(statistics, "keyPrefix", "products:stats:");
+        ReflectionTestUtils.setField(statistics, "buckets", List.of(10d, 50d, 100d, 500d, 1000d));
+        ReflectionTestUtils.setField(statistics, "reconcileInterval", Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void statisticsWhenPriceChangesShouldMoveProductBetweenBuckets() {
+        statistics.put(Map.of(1L, 20d));
+        assertEquals(List.of(0L, 1L, 0L, 0L, 0L, 0L), bucketCounts());
+        statistics.put(Map.of(1L, 200d));
+        var result = statistics.get();
+        assertEquals(List.of(0L, 0L, 0L, 1L, 0L, 0L), bucketCounts());
+        assertEquals(1L, result.getCount());
+        assertEquals(200d, result.getMinPrice());
+        assertEquals(200d, result.getMaxPrice());
+        assertEquals(200d, result.getAveragePrice(), 1e-9);
+    }
+
+    @Test
+    public void statisticsWhenProductIsRemovedShouldAdjustSumAndCount() {
+        statistics.put(Map.of(1L, 20d, 2L, 200d, 3L, 1500d));
+        statistics.remove(List.of(3L));
+        var result = statistics.get();
+        assertEquals(2L, result.getCount());
+        assertEquals(20d, result.getMinPrice());
+        assertEquals(200d, result.getMaxPrice());
+        assertEquals(110d, result.getAveragePrice(), 1e-9);
+        assertEquals(List.of(0L, 1L, 0L, 1L, 0L, 0L), bucketCounts());
+        statistics.remove(List.of(1L, 2L, 42L));
+        result = statistics.get();
+        assertEquals(0L, result.getCount());
+        assertNull(result.getAveragePrice());
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 0L), bucketCounts());
+    }
+
+    @Test
+    public void statisticsWhenTheyDriftedShouldRebuildAndSwapThemIn() {
+        statistics.put(Map.of(1L, 20d, 2L, 200d, 3L, 1500d));
+        when(repository.summarizePrices()).thenReturn(new PriceSummaryDto(2L, 20d, 300d, 320d));
+        when(repository.streamAllDtos()).thenReturn(Stream.of(
+                new ProductDto(1L, "Playstation 5", 20d, 1L),
+                new ProductDto(2L, "Xbox Series X", 300d, 1L)));
+        assertTrue(statistics.reconcile());
+        var result = statistics.get();
+        assertEquals(2L, result.getCount());
+        assertEquals(300d, result.getMaxPrice());
+        assertEquals(160d, result.getAveragePrice(), 1e-9);
+        assertEquals(List.of(0L, 1L, 0L, 1L, 0L, 0L), bucketCounts());
+        assertFalse(redisTemplate.hasKey("products:stats:prices:rebuild"));
+        assertFalse(redisTemplate.hasKey("products:stats:totals:rebuild"));
+        assertEquals(1d, registry.counter("products.stats.reconciliations", "result", "rebuilt").count());
+    }
+
+    @Test
+    public void statisticsWhenProductsChangeDuringRebuildShouldKeepTheChanges() {
+        statistics.put(Map.of(1L, 20d, 2L, 200d, 3L, 1500d));
+        when(repository.summarizePrices()).thenReturn(new PriceSummaryDto(2L, 20d, 300d, 320d));
+        when(repository.streamAllDtos()).thenReturn(Stream.of(
+                        new ProductDto(1L, "Playstation 5", 20d, 1L),
+                        new ProductDto(2L, "Xbox Series X", 300d, 1L))
+                .peek(p -> {
+                    if (p.getId() == 1L) {
+                        statistics.put(Map.of(1L, 70d));
+                        statistics.remove(List.of(2L));
+                    }
+                })
+                .onClose(() -> statistics.put(Map.of(4L, 600d))));
+        assertTrue(statistics.reconcile());
+        var result = statistics.get();
+        assertEquals(2L, result.getCount());
+        assertEquals(70d, result.getMinPrice());
+        assertEquals(600d, result.getMaxPrice());
+        assertEquals(335d, result.getAveragePrice(), 1e-9);
+        assertEquals(List.of(0L, 0L, 1L, 0L, 1L, 0L), bucketCounts());
+        assertFalse(redisTemplate.hasKey("products:stats:changed:rebuild"));
+
+        statistics.put(Map.of(5L, 5d));
+        assertFalse(redisTemplate.hasKey("products:stats:prices:rebuild"));
+        assertEquals(3L, statistics.get().getCount());
+    }
+
+    @Test
+    public void statisticsWhenPriceBucketsChangeShouldRebuild() {
+        statistics.put(Map.of(1L, 20d, 2L, 200d));
+        when(repository.summarizePrices()).thenReturn(new PriceSummaryDto(2L, 20d, 200d, 220d));
+        when(repository.streamAllDtos()).thenAnswer(invocation -> Stream.of(
+                new ProductDto(1L, "Playstation 5", 20d, 1L),
+                new ProductDto(2L, "Xbox Series X", 200d, 1L)));
+        assertTrue(statistics.reconcile());
+        redisTemplate.delete("products:stats:reconcile");
+        assertFalse(statistics.reconcile());
+        assertEquals(1d, registry.counter("products.stats.reconciliations", "result", "consistent").count());
+
+        ReflectionTestUtils.setField(statistics, "buckets", List.of(25d, 100d));
+        redisTemplate.delete("products:stats:reconcile");
+        assertTrue(statistics.reconcile());
+        var histogram = statistics.get().getHistogram();
+        assertEquals(3, histogram.size());
+        assertEquals(25d, histogram.get(0).getTo());
+        assertEquals(List.of(1L, 0L, 1L), bucketCounts());
+    }
+
+    private List<Long> bucketCounts() {
+        return statistics.get().getHistogram().stream().map(PriceBucketDto::getCount).collect(Collectors.toList());
+    }
+}
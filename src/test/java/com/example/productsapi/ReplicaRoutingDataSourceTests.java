@@ -0,0 +1,97 @@
+package com.example.productsapi;
+
+import com.example.productsapi.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.time.Duration;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaRoutingDataSourceTests {
+
+    private SimpleMeterRegistry registry;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate reads;
+    private TransactionTemplate writes;
+
+    @BeforeEach
+    public void setUp() {
+        jdbc = new JdbcTemplate();
+        setUp("");
+    }
+
+    private void setUp(String lagQuery) {
+        registry = new SimpleMeterRegistry();
+        var primary = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "");
+        var replica = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), lagQuery, Duration.ofSeconds(5), Duration.ofMinutes(1));
+        routing.bindTo(registry);
+        routing.afterPropertiesSet();
+        var dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc.setDataSource(dataSource);
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        routing.destroy();
+    }
+
+    @Test
+    public void routingWhenTransactionIsReadOnlyShouldUseReplica() {
+        assertEquals("REPLICA", reads.execute(status -> database()));
+        assertEquals("PRIMARY", writes.execute(status -> database()));
+        assertEquals("PRIMARY", database());
+        assertEquals(1d, registry.get("products.datasource.routes").tag("pool", "replica-1").counter().count());
+    }
+
+    @Test
+    public void routingWhenRequestHasWrittenShouldReadFromPrimary() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("REPLICA", reads.execute(status -> database()));
+        ReplicaRoutingDataSource.usePrimaryForCurrentRequest();
+        assertEquals("PRIMARY", reads.execute(status -> database()));
+    }
+
+    @Test
+    public void routingWhenReplicaLagsTooMuchShouldReadFromPrimary() throws Exception {
+        routing.destroy();
+        setUp("select 60");
+        var lag = registry.get("products.datasource.replica.lag").tag("pool", "replica-1").gauge();
+        for (int i = 0; i < 100 && lag.value() == 0; i++)
+            Thread.sleep(10);
+        assertEquals(60d, lag.value());
+        assertEquals("PRIMARY", reads.execute(status -> database()));
+    }
+
+    @Test
+    public void routingWhenLagQueryReturnsNoRowShouldReadFromPrimary() throws Exception {
+        routing.destroy();
+        setUp("select 0 where 1 = 0");
+        var database = reads.execute(status -> database());
+        for (int i = 0; i < 100 && !"PRIMARY".equals(database); i++) {
+            Thread.sleep(10);
+            database = reads.execute(status -> database());
+        }
+        assertEquals("PRIMARY", database);
+    }
+
+    private String database() {
+        return jdbc.queryForObject("select database()", String.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTests {
+
+    @Test
+    public void singleFlightWhenCallsOverlapShouldRunLoaderOnce() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var flight = new SingleFlight<Long, String>("test.loads", registry);
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var leader = executor.submit(() -> flight.execute(1L, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "product-1";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            var followers = new ArrayList<Future<String>>();
+            for (int i = 0; i < 7; i++)
+                followers.add(executor.submit(() -> flight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    return "unexpected";
+                })));
+            while (registry.counter("test.loads.coalesced").count() < 7)
+                Thread.sleep(5);
+            release.countDown();
+
+            assertEquals("product-1", leader.get(5, TimeUnit.SECONDS));
+            for (var follower : followers)
+                assertEquals("product-1", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void singleFlightWhenLoaderFailsShouldPropagateAndAllowRetry() {
+        var flight = new SingleFlight<Long, String>("test.loads", new SimpleMeterRegistry());
+        assertThrows(IllegalStateException.class, () -> flight.execute(1L, () -> {
+            throw new IllegalStateException("database is down");
+        }));
+        assertEquals("product-1", flight.execute(1L, () -> "product-1"));
+    }
+
+    @Test
+    public void singleFlightWhenLoaderThrowsErrorShouldReleaseWaiters() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var flight = new SingleFlight<Long, String>("test.loads", registry);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var leader = executor.submit(() -> flight.execute(1L, () -> {
+                started.countDown();
+                await(release);
+                throw new OutOfMemoryError("loader");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            var follower = executor.submit(() -> flight.execute(1L, () -> "unexpected"));
+            while (registry.counter("test.loads.coalesced").count() < 1)
+                Thread.sleep(5);
+            release.countDown();
+
+            var leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, leaderFailure.getCause());
+            var followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, followerFailure.getCause());
+            assertEquals("product-1", flight.execute(1L, () -> "product-1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
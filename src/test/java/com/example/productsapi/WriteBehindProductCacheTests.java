@@ -0,0 +1,120 @@
+package com.example.productsapi;
+
+import com.example.productsapi.cache.ProductCache;
+import com.example.productsapi.cache.ProductCacheEntity;
+import com.example.productsapi.cache.WriteBehindProductCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindProductCacheTests {
+
+    @Mock
+    private ProductCache remote;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WriteBehindProductCache cache;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        cache.close();
+    }
+
+    @Test
+    public void writeBehindShouldCoalesceWritesAndServeThemBeforeFlush() throws Exception {
+        cache = new WriteBehindProductCache(remote, 100, 10, WriteBehindProductCache.BackPressurePolicy.BLOCK, registry);
+        var workerBusy = blockWorker();
+        assertTrue(workerBusy.await(5, TimeUnit.SECONDS));
+
+        cache.put(product(1L, 399.99d));
+        cache.put(product(1L, 349.99d));
+        cache.evict(2L);
+
+        assertEquals(349.99d, cache.get(1L).orElseThrow().getPrice());
+        assertTrue(cache.get(2L).isEmpty());
+        assertEquals(1d, registry.counter("products.cache.write-behind.coalesced").count());
+        assertEquals(2d, registry.get("products.cache.write-behind.depth").gauge().value());
+        verify(remote, never()).get(anyLong());
+
+        release.countDown();
+        verify(remote, timeout(5000)).putAll(argThat(products -> products.size() == 1
+                && products.iterator().next().getPrice() == 349.99d));
+        verify(remote, timeout(5000)).evictAll(List.of(2L));
+    }
+
+    @Test
+    public void writeBehindWhenQueueIsFullAndPolicyIsCallerRunsShouldWriteSynchronously() throws Exception {
+        cache = new WriteBehindProductCache(remote, 1, 10, WriteBehindProductCache.BackPressurePolicy.CALLER_RUNS, registry);
+        var workerBusy = blockWorker();
+        assertTrue(workerBusy.await(5, TimeUnit.SECONDS));
+
+        cache.put(product(1L, 399.99d));
+        var overflow = product(2L, 499.99d);
+        cache.put(overflow);
+
+        verify(remote).put(overflow);
+        assertEquals(1d, registry.counter("products.cache.write-behind.rejected", "policy", "caller_runs").count());
+    }
+
+    @Test
+    public void writeBehindWhenRemoteWriteFailsShouldRetryTheWrite() {
+        cache = new WriteBehindProductCache(remote, 100, 10, WriteBehindProductCache.BackPressurePolicy.BLOCK, registry);
+        doThrow(new RuntimeException("Redis is down")).doNothing().when(remote).putAll(any());
+
+        cache.put(product(1L, 399.99d));
+
+        verify(remote, timeout(5000).times(2)).putAll(argThat(products -> products.size() == 1
+                && products.iterator().next().getId() == 1L));
+        assertEquals(0d, registry.get("products.cache.write-behind.depth").gauge().value());
+        assertEquals(0d, registry.counter("products.cache.write-behind.failed").count());
+        verify(remote, never()).evictAll(List.of(1L));
+    }
+
+    @Test
+    public void writeBehindWhenRemoteWriteKeepsFailingShouldEvictTheProduct() {
+        cache = new WriteBehindProductCache(remote, 100, 10, WriteBehindProductCache.BackPressurePolicy.BLOCK, registry);
+        doThrow(new RuntimeException("Redis is down")).when(remote).putAll(any());
+
+        cache.put(product(1L, 399.99d));
+
+        verify(remote, timeout(5000)).evictAll(List.of(1L));
+        verify(remote, times(3)).putAll(any());
+        assertEquals(1d, registry.counter("products.cache.write-behind.failed").count());
+        assertTrue(cache.get(1L).isEmpty());
+    }
+
+    private CountDownLatch blockWorker() {
+        var workerBusy = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Collection<ProductCacheEntity> products = invocation.getArgument(0);
+            if (products.stream().anyMatch(p -> p.getId() == 99L)) {
+                workerBusy.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(remote).putAll(any());
+        cache.put(product(99L, 1d));
+        return workerBusy;
+    }
+
+    private static ProductCacheEntity product(long id, double price) {
+        var product = new ProductCacheEntity();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price);
+        return product;
+    }
+}